@@ -1,6 +1,7 @@
 plugins {
     java
     application
+    id("ru.hse.java.implementor")
 }
 
 group = "org.example"
@@ -26,9 +27,19 @@ java {
         test {
             java.setSrcDirs(listOf("src/test"))
         }
+        create("jmh") {
+            java.setSrcDirs(listOf("src/jmh"))
+            compileClasspath += main.get().output + configurations.runtimeClasspath.get()
+            runtimeClasspath += main.get().output + configurations.runtimeClasspath.get()
+        }
     }
 }
 
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.36")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.36")
+}
+
 tasks.compileJava {
     options.release.set(11)
 }
@@ -36,3 +47,102 @@ tasks.compileJava {
 tasks.test {
     useJUnitPlatform()
 }
+
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.release.set(11)
+}
+
+// ./gradlew jmh -Pjmh.include=ResolutionBenchmark
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs JMH benchmarks from src/jmh."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args(listOf(project.findProperty("jmh.include")?.toString() ?: ".*", "-rf", "json", "-rff", "$buildDir/jmh-result.json"))
+}
+
+application {
+    mainClass.set("ru.hse.java.implementor.ImplementorCli")
+}
+
+// Архив из cdsArchive есть не в каждой установке, а -XX:SharedArchiveFile с отсутствующим файлом отключает
+// и архив JDK по умолчанию. Поэтому скрипты запуска передают флаг, только если lib/implementor.jsa существует;
+// архив, собранный другой JVM, отбрасывается из-за -Xshare:auto.
+tasks.startScripts {
+    doLast {
+        val unixCds = """
+            |if [ -f "${'$'}APP_HOME/lib/implementor.jsa" ] ; then
+            |    DEFAULT_JVM_OPTS="${'$'}DEFAULT_JVM_OPTS "'"-XX:SharedArchiveFile='"${'$'}APP_HOME"'/lib/implementor.jsa" "-Xshare:auto"'
+            |fi""".trimMargin()
+        val windowsCds = "if exist \"%APP_HOME%\\lib\\implementor.jsa\" set DEFAULT_JVM_OPTS=%DEFAULT_JVM_OPTS% " +
+                "\"-XX:SharedArchiveFile=%APP_HOME%\\lib\\implementor.jsa\" \"-Xshare:auto\""
+        insertAfterDefaultJvmOpts(unixScript, Regex("(?m)^DEFAULT_JVM_OPTS=.*$"), unixCds)
+        insertAfterDefaultJvmOpts(windowsScript, Regex("(?m)^set DEFAULT_JVM_OPTS=.*$"), windowsCds)
+    }
+}
+
+fun insertAfterDefaultJvmOpts(script: File, assignment: Regex, lines: String) {
+    val text = script.readText()
+    val match = assignment.find(text) ?: error("No DEFAULT_JVM_OPTS assignment in $script")
+    // Скрипт для Windows записан с окончаниями строк \r\n.
+    val newline = if (text.contains("\r\n")) "\r\n" else "\n"
+    script.writeText(text.replaceRange(match.range, match.value + newline + lines.replace("\n", newline)))
+}
+
+// ./gradlew jdkIndex: индекс типов JDK для быстрого пути SimpleImplementor, кладется в дистрибутив рядом с jar.
+// Он верен только для JDK, на которой запущена задача; на другой JDK имплементор разрешает типы как обычно.
+val jdkIndex = tasks.register<JavaExec>("jdkIndex") {
+    group = "build"
+    description = "Builds the index of JDK interfaces and abstract classes shipped with the distribution."
+    val outputDir = buildDir.resolve("jdk-index")
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set(application.mainClass)
+    args("--build-jdk-index", outputDir, "-m", "java.base", "-m", "java.sql")
+    inputs.property("jdk", Runtime.version().toString())
+    outputs.dir(outputDir)
+    doFirst {
+        delete(outputDir)
+    }
+}
+
+distributions {
+    main {
+        contents {
+            from(jdkIndex) {
+                into("lib")
+            }
+        }
+    }
+}
+
+// ./gradlew cdsArchive: тренировочный запуск установленного CLI записывает загруженные классы в AppCDS архив
+// рядом с jar файлами. Classpath совпадает с тем, что собирают скрипты запуска, иначе JVM не примет архив.
+// -XX:ArchiveClassesAtExit появился в JDK 13: на более старой JVM, которой запускается задача (Gradle или
+// toolchain), задача пропускается, и скрипты запуска работают без архива.
+tasks.register<JavaExec>("cdsArchive") {
+    group = "distribution"
+    description = "Creates an AppCDS archive for the installed CLI from a training run (JDK 13+)."
+    dependsOn(tasks.installDist)
+    onlyIf {
+        val supported = javaLauncher.get().metadata.languageVersion.canCompileOrRun(13)
+        if (!supported) {
+            logger.lifecycle("Skipping $name: -XX:ArchiveClassesAtExit requires JDK 13+.")
+        }
+        supported
+    }
+    val libDir = tasks.installDist.get().destinationDir.resolve("lib")
+    val archive = libDir.resolve("implementor.jsa")
+    val trainingOutput = buildDir.resolve("cds/training")
+    classpath = files(provider { tasks.startScripts.get().classpath!!.files.map { libDir.resolve(it.name) } })
+    mainClass.set(application.mainClass)
+    jvmArgs("-XX:ArchiveClassesAtExit=$archive", "-Xlog:cds=off", "-Xlog:cds+dynamic=off")
+    // Запуск нужен только ради загруженных классов: архив записывается и тогда, когда часть классов из jar
+    // (например, тестовые study.scan с одинаковыми именами реализаций) не реализуется и CLI возвращает 1.
+    isIgnoreExitValue = true
+    args("-o", trainingOutput, "-m", "java.sql", "-s", libDir.resolve(tasks.jar.get().archiveFileName.get()),
+            "java.util.Comparator", "java.util.AbstractList")
+    outputs.file(archive)
+    doFirst {
+        delete(archive, trainingOutput)
+    }
+}
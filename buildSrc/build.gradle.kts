@@ -0,0 +1,59 @@
+plugins {
+    `java-gradle-plugin`
+}
+
+repositories {
+    mavenCentral()
+}
+
+java {
+    sourceSets {
+        main {
+            java.setSrcDirs(listOf("src/main"))
+        }
+        test {
+            java.setSrcDirs(listOf("src/test"))
+        }
+    }
+}
+
+// Зависимости имплементора, которые функциональный тест передает во вложенный build вместе с ../src/main.
+val implementorDependencies by configurations.creating
+
+dependencies {
+    implementorDependencies("org.jetbrains:annotations:16.0.2")
+    testImplementation(platform("org.junit:junit-bom:5.7.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("org.easytesting:fest-assert-core:2.0M10")
+}
+
+tasks.compileJava {
+    options.release.set(11)
+    options.encoding = "UTF-8"
+}
+
+tasks.compileTestJava {
+    options.release.set(11)
+}
+
+// Функциональный тест собирает имплементор из исходников корневого проекта и вызывает его из ImplementTask,
+// поэтому они входят во входы теста.
+tasks.test {
+    useJUnitPlatform()
+    val implementorSources = file("../src/main")
+    inputs.dir(implementorSources).withPathSensitivity(PathSensitivity.RELATIVE)
+    inputs.files(implementorDependencies)
+    doFirst {
+        systemProperty("implementor.sources", implementorSources.absolutePath)
+        systemProperty("implementor.dependencies", implementorDependencies.asPath)
+    }
+}
+
+gradlePlugin {
+    plugins {
+        create("implementor") {
+            id = "ru.hse.java.implementor"
+            implementationClass = "ru.hse.java.implementor.gradle.ImplementorPlugin"
+        }
+    }
+}
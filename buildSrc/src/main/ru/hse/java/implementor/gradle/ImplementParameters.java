@@ -0,0 +1,20 @@
+package ru.hse.java.implementor.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * Порция классов для одного {@link ImplementWork}.
+ */
+public interface ImplementParameters extends WorkParameters {
+
+    ConfigurableFileCollection getClassDirectories();
+
+    ListProperty<String> getClassNames();
+
+    ListProperty<String> getStandardLibraryClasses();
+
+    DirectoryProperty getOutputDirectory();
+}
@@ -0,0 +1,104 @@
+package ru.hse.java.implementor.gradle;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Генерирует реализации классов из `classDirectories` и стандартной библиотеки в `outputDirectory`.
+ *
+ * Входы задачи — содержимое директорий с class файлами, списки классов и classpath самого имплементора,
+ * поэтому при неизменных входах задача пропускается или берет результат из build cache.
+ * Классы делятся на порции по `classesPerWorker`, каждая порция обрабатывается отдельным
+ * worker-ом Gradle в изолированном загрузчике классов.
+ */
+@CacheableTask
+public abstract class ImplementTask extends DefaultTask {
+    static final int DEFAULT_CLASSES_PER_WORKER = 64;
+
+    /**
+     * Директории с class файлами. Класс из {@link #getClassNames()} ищется в первой директории,
+     * где лежит его class файл.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClassDirectories();
+
+    /**
+     * Полные названия классов/интерфейсов из {@link #getClassDirectories()}, которые требуется реализовать.
+     */
+    @Input
+    public abstract ListProperty<String> getClassNames();
+
+    /**
+     * Полные названия классов/интерфейсов стандартной библиотеки, которые требуется реализовать.
+     */
+    @Input
+    public abstract ListProperty<String> getStandardLibraryClasses();
+
+    /**
+     * Classpath с {@code ru.hse.java.implementor.SimpleImplementor} и его зависимостями.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getImplementorClasspath();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    /**
+     * Размер порции не влияет на результат, поэтому не входит в ключ кэша.
+     */
+    @Internal
+    public abstract Property<Integer> getClassesPerWorker();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void implement() {
+        // Реализации удаленных из списка классов не должны оставаться в выходной директории.
+        getFileSystemOperations().delete(spec -> spec.delete(getOutputDirectory()));
+        getOutputDirectory().get().getAsFile().mkdirs();
+
+        WorkQueue queue = getWorkerExecutor().classLoaderIsolation(spec ->
+                spec.getClasspath().from(getImplementorClasspath()));
+        int batchSize = Math.max(1, getClassesPerWorker().get());
+        for (List<String> batch : split(getClassNames().get(), batchSize)) {
+            queue.submit(ImplementWork.class, parameters -> {
+                parameters.getClassDirectories().from(getClassDirectories());
+                parameters.getClassNames().set(batch);
+                parameters.getOutputDirectory().set(getOutputDirectory());
+            });
+        }
+        for (List<String> batch : split(getStandardLibraryClasses().get(), batchSize)) {
+            queue.submit(ImplementWork.class, parameters -> {
+                parameters.getStandardLibraryClasses().set(batch);
+                parameters.getOutputDirectory().set(getOutputDirectory());
+            });
+        }
+    }
+
+    private static List<List<String>> split(List<String> classNames, int batchSize) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < classNames.size(); from += batchSize) {
+            batches.add(new ArrayList<>(classNames.subList(from, Math.min(classNames.size(), from + batchSize))));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.hse.java.implementor.gradle;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.gradle.api.GradleException;
+import org.gradle.workers.WorkAction;
+
+/**
+ * Реализует порцию классов одним {@code SimpleImplementor}.
+ *
+ * Имплементор собирается в том же build, что и плагин, поэтому недоступен при компиляции buildSrc:
+ * он загружается из classpath задачи и вызывается через reflection.
+ */
+public abstract class ImplementWork implements WorkAction<ImplementParameters> {
+    private static final String IMPLEMENTOR_CLASS = "ru.hse.java.implementor.SimpleImplementor";
+
+    @Override
+    public void execute() {
+        ImplementParameters parameters = getParameters();
+        List<String> failures = new ArrayList<>();
+        try {
+            Class<?> implementorClass = Class.forName(IMPLEMENTOR_CLASS, true, getClass().getClassLoader());
+            Object implementor = implementorClass.getConstructor(String.class)
+                    .newInstance(parameters.getOutputDirectory().get().getAsFile().getPath());
+            try {
+                Method fromDirectory = implementorClass.getMethod(
+                        "implementAllFromDirectory", String.class, Collection.class);
+                for (Map.Entry<File, List<String>> entry : byDirectory(parameters).entrySet()) {
+                    collectFailures(fromDirectory.invoke(implementor, entry.getKey().getPath(), entry.getValue()),
+                            failures);
+                }
+                List<String> standardLibraryClasses = parameters.getStandardLibraryClasses().getOrElse(List.of());
+                if (!standardLibraryClasses.isEmpty()) {
+                    Method fromStandardLibrary = implementorClass.getMethod(
+                            "implementAllFromStandardLibrary", Collection.class);
+                    collectFailures(fromStandardLibrary.invoke(implementor, standardLibraryClasses), failures);
+                }
+            } finally {
+                implementorClass.getMethod("close").invoke(implementor);
+            }
+        } catch (InvocationTargetException e) {
+            throw new GradleException("Имплементор завершился с ошибкой.", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new GradleException("Не удалось загрузить " + IMPLEMENTOR_CLASS + " из classpath задачи.", e);
+        }
+        if (!failures.isEmpty()) {
+            throw new GradleException("Не удалось реализовать классы:" + System.lineSeparator()
+                    + String.join(System.lineSeparator(), failures));
+        }
+    }
+
+    /**
+     * Группирует классы по первой директории, в которой лежит их class файл.
+     * Класс, которого нет ни в одной директории, отдается первой директории, чтобы ошибку сообщил имплементор.
+     */
+    private static Map<File, List<String>> byDirectory(ImplementParameters parameters) {
+        List<String> classNames = parameters.getClassNames().getOrElse(List.of());
+        Map<File, List<String>> result = new LinkedHashMap<>();
+        if (classNames.isEmpty()) {
+            return result;
+        }
+        List<File> directories = new ArrayList<>(parameters.getClassDirectories().getFiles());
+        if (directories.isEmpty()) {
+            throw new GradleException("Не заданы директории с class файлами для " + classNames);
+        }
+        for (String className : classNames) {
+            String classFile = className.replace('.', File.separatorChar) + ".class";
+            File owner = directories.get(0);
+            for (File directory : directories) {
+                if (new File(directory, classFile).isFile()) {
+                    owner = directory;
+                    break;
+                }
+            }
+            result.computeIfAbsent(owner, directory -> new ArrayList<>()).add(className);
+        }
+        return result;
+    }
+
+    private static void collectFailures(Object results, List<String> failures) throws ReflectiveOperationException {
+        for (Object result : (List<?>) results) {
+            if (!(Boolean) result.getClass().getMethod("isSuccess").invoke(result)) {
+                failures.add(result.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.hse.java.implementor.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.tasks.SourceSetContainer;
+
+/**
+ * Подключает тип задачи {@link ImplementTask}.
+ * Каждой задаче этого типа по умолчанию назначается выходная директория
+ * {@code build/generated/implementor/<имя задачи>}, а в проекте с плагином {@code java}
+ * имплементор берется из runtime classpath основного source set.
+ *
+ * <pre>
+ * tasks.register&lt;ImplementTask&gt;("implementStubs") {
+ *     classDirectories.from(layout.buildDirectory.dir("classes/java/main"))
+ *     classNames.addAll("ru.example.Service", "ru.example.Repository")
+ *     standardLibraryClasses.add("java.util.Comparator")
+ * }
+ * </pre>
+ */
+public class ImplementorPlugin implements Plugin<Project> {
+
+    @Override
+    public void apply(Project project) {
+        project.getTasks().withType(ImplementTask.class).configureEach(task -> {
+            task.getOutputDirectory().convention(
+                    project.getLayout().getBuildDirectory().dir("generated/implementor/" + task.getName()));
+            task.getClassesPerWorker().convention(ImplementTask.DEFAULT_CLASSES_PER_WORKER);
+        });
+
+        project.getPluginManager().withPlugin("java", plugin -> {
+            SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
+            project.getTasks().withType(ImplementTask.class).configureEach(task ->
+                    task.getImplementorClasspath().from(sourceSets.getByName("main").getRuntimeClasspath()));
+        });
+    }
+}
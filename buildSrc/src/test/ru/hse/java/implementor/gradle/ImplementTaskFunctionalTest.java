@@ -0,0 +1,153 @@
+package ru.hse.java.implementor.gradle;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Runs ImplementTask in a nested build that compiles the real implementor from the root project,
+ * so the work action resolves SimpleImplementor and its methods by name from the isolated class loader.
+ */
+public class ImplementTaskFunctionalTest {
+    private static final String TASK = ":implementStubs";
+    private static final List<String> EXPECTED_FILES = Arrays.asList(
+            "ComparatorImpl.java",
+            "study/AbstractClassImpl.java",
+            "study/MyInterfaceImpl.java",
+            "study/inherit/ClassBImpl.java");
+
+    private Path projectDirectory;
+
+    @BeforeEach
+    public void createProject() throws IOException {
+        projectDirectory = Files.createTempDirectory("implement-task");
+        write("settings.gradle", String.join("\n",
+                "rootProject.name = 'implement-task'",
+                "buildCache {",
+                "    local {",
+                "        directory = file('build-cache')",
+                "    }",
+                "}",
+                ""));
+        write("build.gradle", String.join("\n",
+                "import ru.hse.java.implementor.gradle.ImplementTask",
+                "",
+                "plugins {",
+                "    id 'java'",
+                "    id 'ru.hse.java.implementor'",
+                "}",
+                "",
+                "sourceSets.main.java.srcDirs = [file(" + quote(System.getProperty("implementor.sources")) + ")]",
+                "sourceSets.main.resources.srcDirs = []",
+                "",
+                "dependencies {",
+                "    implementation files(" + dependencies() + ")",
+                "}",
+                "",
+                "tasks.withType(JavaCompile).configureEach {",
+                "    options.release = 11",
+                "    options.encoding = 'UTF-8'",
+                "}",
+                "",
+                "tasks.register('implementStubs', ImplementTask) {",
+                "    classDirectories.from(sourceSets.main.output.classesDirs)",
+                "    classNames.addAll('study.MyInterface', 'study.AbstractClass', 'study.inherit.ClassB')",
+                "    if (project.hasProperty('missingClass')) {",
+                "        classNames.add(project.property('missingClass'))",
+                "    }",
+                "    standardLibraryClasses.add('java.util.Comparator')",
+                "    classesPerWorker = 1",
+                "}",
+                ""));
+    }
+
+    @AfterEach
+    public void deleteProject() throws IOException {
+        try (Stream<Path> files = Files.walk(projectDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void upToDateAndFromCache() throws IOException {
+        BuildResult first = run(TASK, "--build-cache").build();
+        assertThat(first.task(TASK).getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+        assertThat(generatedFiles()).isEqualTo(EXPECTED_FILES);
+        String implementation = new String(Files.readAllBytes(output().resolve("study/MyInterfaceImpl.java")),
+                StandardCharsets.UTF_8);
+        assertThat(implementation).contains("class MyInterfaceImpl implements study.MyInterface");
+
+        BuildResult second = run(TASK, "--build-cache").build();
+        assertThat(second.task(TASK).getOutcome()).isEqualTo(TaskOutcome.UP_TO_DATE);
+
+        run("clean").build();
+        assertThat(Files.exists(output())).isFalse();
+        BuildResult restored = run(TASK, "--build-cache").build();
+        assertThat(restored.task(TASK).getOutcome()).isEqualTo(TaskOutcome.FROM_CACHE);
+        assertThat(generatedFiles()).isEqualTo(EXPECTED_FILES);
+    }
+
+    @Test
+    public void failedClassFailsTask() {
+        BuildResult result = run(TASK, "-PmissingClass=study.Missing").buildAndFail();
+        assertThat(result.task(TASK).getOutcome()).isEqualTo(TaskOutcome.FAILED);
+        assertThat(result.getOutput()).contains("study.Missing");
+    }
+
+    private GradleRunner run(String... arguments) {
+        return GradleRunner.create()
+                .withProjectDir(projectDirectory.toFile())
+                .withPluginClasspath()
+                .withArguments(arguments);
+    }
+
+    private Path output() {
+        return projectDirectory.resolve("build/generated/implementor/implementStubs");
+    }
+
+    private List<String> generatedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(output())) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> output().relativize(file).toString().replace(File.separatorChar, '/'))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Files.write(projectDirectory.resolve(fileName), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String dependencies() {
+        List<String> files = new ArrayList<>();
+        for (String path : System.getProperty("implementor.dependencies").split(File.pathSeparator)) {
+            if (!path.isEmpty()) {
+                files.add(quote(path));
+            }
+        }
+        return String.join(", ", files);
+    }
+
+    private static String quote(String path) {
+        return "'" + Paths.get(path).toAbsolutePath().toString().replace('\\', '/') + "'";
+    }
+}
@@ -0,0 +1,72 @@
+package ru.hse.java.implementor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Стоимость вызова через сгенерированный декоратор {@link ImplementationMode#FORWARDING}
+ * по сравнению с прямым вызовом и декоратором на {@link Proxy}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForwardingBenchmark {
+
+    private LongBinaryOperator direct;
+    private LongBinaryOperator forwarding;
+    private LongBinaryOperator proxy;
+    private long a = 17;
+    private long b = 25;
+
+    @Setup
+    public void setUp() throws Exception {
+        direct = Long::sum;
+
+        Path output = Files.createTempDirectory("forwarding");
+        try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+            implementor.setOutputFormat(OutputFormat.CLASS).setImplementationMode(ImplementationMode.FORWARDING);
+            String implClassName = implementor.implementFromStandardLibrary(LongBinaryOperator.class.getName());
+            ClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()});
+            forwarding = (LongBinaryOperator) loader.loadClass(implClassName).
+                    getConstructor(LongBinaryOperator.class).newInstance(direct);
+        }
+
+        LongBinaryOperator target = direct;
+        proxy = (LongBinaryOperator) Proxy.newProxyInstance(LongBinaryOperator.class.getClassLoader(),
+                new Class<?>[]{LongBinaryOperator.class}, (self, method, args) -> method.invoke(target, args));
+    }
+
+    @Benchmark
+    public long direct() {
+        return direct.applyAsLong(a, b);
+    }
+
+    @Benchmark
+    public long forwarding() {
+        return forwarding.applyAsLong(a, b);
+    }
+
+    @Benchmark
+    public long proxy() {
+        return proxy.applyAsLong(a, b);
+    }
+}
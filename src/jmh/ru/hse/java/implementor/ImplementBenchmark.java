@@ -0,0 +1,87 @@
+package ru.hse.java.implementor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Полный вызов implement: загрузка, разрешение, рендеринг и запись файла.
+ * Запускается из корня проекта, входные классы из папки берутся из build/classes/java/main.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImplementBenchmark {
+    private static final String CLASSES_DIRECTORY = "build/classes/java/main";
+
+    @State(Scope.Benchmark)
+    public static class Output {
+        @Param({"REFLECTION", "CLASS_FILE"})
+        public MetadataBackend backend;
+
+        private Path outputDirectory;
+        SimpleImplementor implementor;
+
+        @Setup
+        public void setUp() throws IOException {
+            outputDirectory = Files.createTempDirectory("implementor-jmh");
+            implementor = new SimpleImplementor(outputDirectory.toString()).setMetadataBackend(backend);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException, ImplementorException {
+            implementor.close();
+            try (Stream<Path> files = Files.walk(outputDirectory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class StandardLibraryInput {
+        @Param({
+                "java.util.AbstractList",
+                "javax.swing.text.JTextComponent",
+                "java.sql.ResultSet"
+        })
+        public String className;
+    }
+
+    @State(Scope.Benchmark)
+    public static class DirectoryInput {
+        @Param({
+                "study.AbstractClass",
+                "study.MyInterface",
+                "study.inherit.ClassB"
+        })
+        public String className;
+    }
+
+    @Benchmark
+    public String implementFromStandardLibrary(Output output, StandardLibraryInput input) throws ImplementorException {
+        return output.implementor.implementFromStandardLibrary(input.className);
+    }
+
+    @Benchmark
+    public String implementFromDirectory(Output output, DirectoryInput input) throws ImplementorException {
+        return output.implementor.implementFromDirectory(CLASSES_DIRECTORY, input.className);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.hse.java.implementor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность рендеринга по уже разрешенным метаданным.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({
+            "java.util.AbstractList",
+            "javax.swing.text.JTextComponent",
+            "java.sql.ResultSet",
+            "study.AbstractClass",
+            "study.MyClass"
+    })
+    public String className;
+
+    private ClassMetadata metadata;
+
+    @Setup
+    public void setUp() throws Exception {
+        metadata = ReflectionClassMetadata.of(Class.forName(className));
+        metadata.methodsToGen();
+    }
+
+    @Benchmark
+    public ByteBuffer source() throws CharacterCodingException {
+        return SourceRenderer.encode(SourceRenderer.render(metadata), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] classFile() {
+        return ClassFileWriter.write(metadata);
+    }
+}
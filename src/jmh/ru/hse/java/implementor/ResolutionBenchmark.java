@@ -0,0 +1,61 @@
+package ru.hse.java.implementor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разрешение абстрактных методов на глубоких (JTextComponent), ромбовидных (ConcurrentNavigableMap)
+ * и широких (ResultSet) иерархиях.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+
+    @Param({
+            "java.util.AbstractList",
+            "java.util.concurrent.ConcurrentNavigableMap",
+            "javax.swing.text.JTextComponent",
+            "java.sql.ResultSet"
+    })
+    public String className;
+
+    private ClassMetadata warm;
+
+    @Setup
+    public void setUp() throws Exception {
+        warm = ReflectionClassMetadata.of(Class.forName(className));
+        warm.methodsToGen();
+    }
+
+    /**
+     * Разбор class файлов всей иерархии и разрешение с нуля, без кэшей.
+     */
+    @Benchmark
+    public List<MethodMetadata> coldClassFile() throws ImplementorException {
+        return new ClassFileRepository(null, null).load(className).methodsToGen();
+    }
+
+    /**
+     * Повторное разрешение уже разобранного типа: таблица членов берется из кэша.
+     */
+    @Benchmark
+    public List<MethodMetadata> warmReflection() {
+        return warm.methodsToGen();
+    }
+}
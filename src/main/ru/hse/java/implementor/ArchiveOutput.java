@@ -0,0 +1,67 @@
+package ru.hse.java.implementor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Zip/jar архив, в который реализации пишутся одним потоком вместо отдельных файлов и директорий.
+ * Записи раскладываются по пакетам так же, как файлы в выходной директории.
+ * Архив создается при первой записи и становится корректным только после {@link #close()}.
+ */
+final class ArchiveOutput implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Одинаковое время у всех записей, чтобы архив не менялся только из-за момента генерации.
+     */
+    private static final long ENTRY_TIME =
+            LocalDateTime.of(1980, 2, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    private final Path path;
+    private final Set<String> entries = new HashSet<>();
+    private ZipOutputStream out;
+
+    ArchiveOutput(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @param entryName путь записи внутри архива, например {@code study/MyInterfaceImpl.java}
+     * @return {@code false}, если запись с таким именем уже есть: реализация одного класса всегда одинакова,
+     * поэтому повторная запись не нужна
+     */
+    synchronized boolean write(String entryName, ByteBuffer content) throws IOException {
+        if (!entries.add(entryName)) {
+            return false;
+        }
+        if (out == null) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        }
+        ZipEntry entry = new ZipEntry(entryName);
+        entry.setTime(ENTRY_TIME);
+        out.putNextEntry(entry);
+        out.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+        out.closeEntry();
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+}
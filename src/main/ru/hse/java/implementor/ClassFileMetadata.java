@@ -0,0 +1,108 @@
+package ru.hse.java.implementor;
+
+import java.util.List;
+
+/**
+ * {@link ClassMetadata}, прочитанное из байтов class файла без загрузки класса.
+ * Супертипы связываются {@link ClassFileRepository} сразу после разбора.
+ */
+final class ClassFileMetadata extends ClassMetadata {
+    private final String name;
+    private final int modifiers;
+    private final String superName;
+    private final List<String> interfaceNames;
+    private final List<MethodMetadata> methods;
+    private final List<MethodMetadata> constructors;
+    private final String canonicalName;
+    private final String simpleName;
+
+    private ClassFileMetadata superclass;
+    private List<ClassFileMetadata> interfaces;
+    private byte[] digest;
+
+    ClassFileMetadata(String name, int modifiers, String superName, List<String> interfaceNames,
+                      List<MethodMetadata> methods, List<MethodMetadata> constructors,
+                      String outerName, String innerSimpleName) {
+        this.name = name;
+        this.modifiers = modifiers;
+        this.superName = superName;
+        this.interfaceNames = List.copyOf(interfaceNames);
+        this.methods = List.copyOf(methods);
+        this.constructors = List.copyOf(constructors);
+        if (outerName != null) {
+            this.simpleName = innerSimpleName;
+            this.canonicalName = TypeRef.canonicalName(outerName) + "." + innerSimpleName;
+        } else {
+            this.simpleName = name.substring(name.lastIndexOf('.') + 1);
+            this.canonicalName = name;
+        }
+    }
+
+    /**
+     * @return внутреннее имя суперкласса, {@code null} для {@code java.lang.Object}
+     */
+    String getSuperName() {
+        return superName;
+    }
+
+    List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    void link(ClassFileMetadata superclass, List<ClassFileMetadata> interfaces, byte[] digest) {
+        this.superclass = superclass;
+        this.interfaces = List.copyOf(interfaces);
+        this.digest = digest;
+    }
+
+    @Override
+    byte[] classFileDigest() {
+        return digest;
+    }
+
+    @Override
+    String getName() {
+        return name;
+    }
+
+    @Override
+    String getCanonicalName() {
+        return canonicalName;
+    }
+
+    @Override
+    String getSimpleName() {
+        return simpleName;
+    }
+
+    @Override
+    String getPackageName() {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(0, dot);
+    }
+
+    @Override
+    int getModifiers() {
+        return modifiers;
+    }
+
+    @Override
+    ClassMetadata getSuperclass() {
+        return superclass;
+    }
+
+    @Override
+    List<ClassFileMetadata> getInterfaces() {
+        return interfaces;
+    }
+
+    @Override
+    List<MethodMetadata> getDeclaredMethods() {
+        return methods;
+    }
+
+    @Override
+    List<MethodMetadata> getDeclaredConstructors() {
+        return constructors;
+    }
+}
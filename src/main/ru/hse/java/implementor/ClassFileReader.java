@@ -0,0 +1,228 @@
+package ru.hse.java.implementor;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Минимальный разборщик class файлов: читает флаги доступа, супертипы, методы, конструкторы
+ * и их исключения, не загружая класс в JVM.
+ */
+final class ClassFileReader {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    static final int ACC_BRIDGE = 0x0040;
+    static final int ACC_SYNTHETIC = 0x1000;
+    static final int ACC_MODULE = 0x8000;
+
+    private ClassFileReader() {
+    }
+
+    static ClassFileMetadata read(byte[] bytes) throws ImplementorException {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException | RuntimeException e) {
+            throw new ImplementorException("Некорректный class файл.", e);
+        }
+    }
+
+    private static ClassFileMetadata read(DataInputStream in) throws IOException, ImplementorException {
+        Object[] pool = readHeaderAndPool(in);
+
+        int access = in.readUnsignedShort();
+        String name = className(pool, in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        String superName = superIndex == 0 ? null : className(pool, superIndex);
+
+        int interfacesCount = in.readUnsignedShort();
+        List<String> interfaces = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaces.add(className(pool, in.readUnsignedShort()));
+        }
+
+        int fieldsCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldsCount; i++) {
+            in.skipBytes(6);
+            skipAttributes(in);
+        }
+
+        boolean isInterface = (access & java.lang.reflect.Modifier.INTERFACE) != 0;
+        String binaryName = name.replace('/', '.');
+        List<MethodMetadata> methods = new ArrayList<>();
+        List<MethodMetadata> constructors = new ArrayList<>();
+        int methodsCount = in.readUnsignedShort();
+        for (int i = 0; i < methodsCount; i++) {
+            int methodAccess = in.readUnsignedShort();
+            String methodName = (String) pool[in.readUnsignedShort()];
+            String descriptor = (String) pool[in.readUnsignedShort()];
+            List<TypeRef> exceptions = Collections.emptyList();
+
+            int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                String attributeName = (String) pool[in.readUnsignedShort()];
+                int length = in.readInt();
+                if ("Exceptions".equals(attributeName)) {
+                    int count = in.readUnsignedShort();
+                    exceptions = new ArrayList<>(count);
+                    for (int k = 0; k < count; k++) {
+                        exceptions.add(TypeRef.fromInternalName(className(pool, in.readUnsignedShort())));
+                    }
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+
+            if ("<clinit>".equals(methodName)) {
+                continue;
+            }
+            MethodMetadata m = method(methodName, methodAccess, descriptor, exceptions, isInterface, binaryName);
+            if (MethodMetadata.CONSTRUCTOR_NAME.equals(methodName)) {
+                constructors.add(m);
+            } else {
+                methods.add(m);
+            }
+        }
+
+        String simpleName = null;
+        String outerName = null;
+        int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = (String) pool[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (!"InnerClasses".equals(attributeName)) {
+                in.skipBytes(length);
+                continue;
+            }
+            int count = in.readUnsignedShort();
+            for (int j = 0; j < count; j++) {
+                int innerIndex = in.readUnsignedShort();
+                int outerIndex = in.readUnsignedShort();
+                int innerNameIndex = in.readUnsignedShort();
+                int innerAccess = in.readUnsignedShort();
+                if (name.equals(className(pool, innerIndex)) && outerIndex != 0 && innerNameIndex != 0) {
+                    outerName = className(pool, outerIndex);
+                    simpleName = (String) pool[innerNameIndex];
+                    access = innerAccess;
+                }
+            }
+        }
+
+        return new ClassFileMetadata(binaryName, access, superName, interfaces, methods, constructors,
+                outerName, simpleName);
+    }
+
+    /**
+     * Флаги доступа класса без разбора остальной части файла: поток читается только до конца пула констант.
+     */
+    static int readAccessFlags(InputStream input) throws ImplementorException {
+        try {
+            DataInputStream in = new DataInputStream(input);
+            readHeaderAndPool(in);
+            return in.readUnsignedShort();
+        } catch (IOException | RuntimeException e) {
+            throw new ImplementorException("Некорректный class файл.", e);
+        }
+    }
+
+    private static Object[] readHeaderAndPool(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Неверная сигнатура class файла.");
+        }
+        in.skipBytes(4);
+
+        int count = in.readUnsignedShort();
+        Object[] pool = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    pool[i] = in.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    pool[i] = in.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                    in.skipBytes(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    in.skipBytes(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    in.skipBytes(4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Неизвестный тег в пуле констант: " + tag);
+            }
+        }
+        return pool;
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.skipBytes(2);
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    private static String className(Object[] pool, int index) {
+        return (String) pool[(Integer) pool[index]];
+    }
+
+    private static MethodMetadata method(String name, int access, String descriptor, List<TypeRef> exceptions,
+                                         boolean declaredInInterface, String declaringClass) {
+        List<TypeRef> params = new ArrayList<>();
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            int start = i;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            i++;
+            params.add(TypeRef.fromDescriptor(descriptor.substring(start, i)));
+        }
+        TypeRef returnType = TypeRef.fromDescriptor(descriptor.substring(i + 1));
+        return new MethodMetadata(name, access, (access & ACC_BRIDGE) != 0, params, returnType, exceptions,
+                declaredInInterface, declaringClass);
+    }
+}
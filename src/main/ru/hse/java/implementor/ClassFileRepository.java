@@ -0,0 +1,109 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Источник {@link ClassFileMetadata}: читает class файлы из директории,
+ * а не найденные там типы ищет в родительском репозитории, как это делает загрузчик классов.
+ * Разобранные классы кэшируются.
+ */
+final class ClassFileRepository {
+    private static final ClassFileRepository system = new ClassFileRepository(null, null);
+
+    private final Path root;
+    private final ClassFileRepository parent;
+    private final ConcurrentMap<String, ClassFileMetadata> cache = new ConcurrentHashMap<>();
+
+    ClassFileRepository(@Nullable Path root, @Nullable ClassFileRepository parent) {
+        this.root = root;
+        this.parent = parent;
+    }
+
+    /**
+     * Репозиторий классов, видимых системному загрузчику. Классы стандартной библиотеки читаются из образа JDK
+     * ({@link JrtImage}), остальные - через ресурсы системного загрузчика.
+     */
+    static ClassFileRepository system() {
+        return system;
+    }
+
+    /**
+     * @param className бинарное имя класса, например {@code java.util.Map$Entry}
+     */
+    ClassFileMetadata load(String className) throws ImplementorException {
+        ClassFileMetadata metadata = find(className);
+        if (metadata == null) {
+            throw new ImplementorException("Входной класс не найден.");
+        }
+        return metadata;
+    }
+
+    @Nullable
+    private ClassFileMetadata find(String className) throws ImplementorException {
+        if (parent != null) {
+            ClassFileMetadata metadata = parent.find(className);
+            if (metadata != null) {
+                return metadata;
+            }
+        }
+
+        ClassFileMetadata metadata = cache.get(className);
+        if (metadata != null) {
+            return metadata;
+        }
+
+        byte[] bytes = readClassFile(className);
+        if (bytes == null) {
+            return null;
+        }
+
+        metadata = ClassFileReader.read(bytes);
+        // Как и в reflection, у интерфейсов нет суперкласса, хотя в class файле указан java.lang.Object.
+        ClassFileMetadata superclass = metadata.getSuperName() == null || metadata.isInterface() ?
+                null : load(binaryName(metadata.getSuperName()));
+        List<ClassFileMetadata> interfaces = new ArrayList<>();
+        for (String i : metadata.getInterfaceNames()) {
+            interfaces.add(load(binaryName(i)));
+        }
+        metadata.link(superclass, interfaces, ClassMetadata.sha256().digest(bytes));
+
+        ClassFileMetadata previous = cache.putIfAbsent(className, metadata);
+        return previous == null ? metadata : previous;
+    }
+
+    /**
+     * @return байты class файла или {@code null}, если в этом репозитории (без учета родителя) его нет
+     */
+    @Nullable
+    byte[] readClassFile(String className) throws ImplementorException {
+        String fileName = className.replace('.', '/') + ".class";
+        try {
+            if (root == null) {
+                byte[] bytes = JrtImage.get().readClassFile(className);
+                if (bytes != null) {
+                    return bytes;
+                }
+                try (InputStream in = ClassLoader.getSystemResourceAsStream(fileName)) {
+                    return in == null ? null : in.readAllBytes();
+                }
+            }
+            Path file = root.resolve(fileName);
+            return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        } catch (IOException e) {
+            throw new ImplementorException("Невозможно прочитать входной класс.", e);
+        }
+    }
+
+    private static String binaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+}
@@ -0,0 +1,610 @@
+package ru.hse.java.implementor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Генерирует готовый к загрузке class файл реализации, минуя javac.
+ * Конструктор и тела методов совпадают с тем, что печатает исходный код реализации:
+ * вызов того же конструктора предка и возврат значений по умолчанию или передача вызова делегату.
+ * Ветвлений в сгенерированном коде нет, поэтому атрибут StackMapTable не нужен; циклы по счетчикам
+ * {@link ImplementationMode#COUNTING} развернуты.
+ */
+final class ClassFileWriter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int JAVA_11 = 55;
+
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ACONST_NULL = 0x01;
+    private static final int ICONST_0 = 0x03;
+    private static final int LCONST_0 = 0x09;
+    private static final int FCONST_0 = 0x0B;
+    private static final int DCONST_0 = 0x0E;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD = 0x15;
+    private static final int LLOAD = 0x16;
+    private static final int FLOAD = 0x17;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int ALOAD_0 = 0x2A;
+    private static final int ALOAD_1 = 0x2B;
+    private static final int AALOAD = 0x32;
+    private static final int AASTORE = 0x53;
+    private static final int POP = 0x57;
+    private static final int DUP = 0x59;
+    private static final int IRETURN = 0xAC;
+    private static final int LRETURN = 0xAD;
+    private static final int FRETURN = 0xAE;
+    private static final int DRETURN = 0xAF;
+    private static final int ARETURN = 0xB0;
+    private static final int RETURN = 0xB1;
+    private static final int GETSTATIC = 0xB2;
+    private static final int PUTSTATIC = 0xB3;
+    private static final int GETFIELD = 0xB4;
+    private static final int PUTFIELD = 0xB5;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int INVOKEINTERFACE = 0xB9;
+    private static final int NEW = 0xBB;
+    private static final int ANEWARRAY = 0xBD;
+    private static final int CHECKCAST = 0xC0;
+
+    private static final String LONG_ADDER = "java/util/concurrent/atomic/LongAdder";
+
+    private final ConstantPool pool = new ConstantPool();
+
+    private ClassFileWriter() {
+    }
+
+    static byte[] write(ClassMetadata clazz) {
+        return write(clazz, ImplementationMode.STUB, false);
+    }
+
+    /**
+     * @param hooks вызывать ли хуки до и после передачи вызова; только для {@link ImplementationMode#FORWARDING}
+     */
+    static byte[] write(ClassMetadata clazz, ImplementationMode mode, boolean hooks) {
+        try {
+            return new ClassFileWriter().writeClass(clazz, clazz.getImplClassName(), mode, hooks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] writeClass(ClassMetadata clazz, String implClassName, ImplementationMode mode, boolean hooks)
+            throws IOException {
+        String superName = clazz.isInterface() ? "java/lang/Object" : internalName(clazz.getName());
+        String implName = internalName(implClassName);
+        Delegate delegate = mode == ImplementationMode.FORWARDING ? new Delegate(clazz, implName, hooks) : null;
+        int counters = mode == ImplementationMode.COUNTING ?
+                pool.fieldRef(implName, SourceRenderer.COUNTERS_FIELD, "[L" + LONG_ADDER + ";") : 0;
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeShort(Modifier.PUBLIC | ACC_SUPER);
+        out.writeShort(pool.classRef(implName));
+        out.writeShort(pool.classRef(superName));
+        if (clazz.isInterface()) {
+            out.writeShort(1);
+            out.writeShort(pool.classRef(internalName(clazz.getName())));
+        } else {
+            out.writeShort(0);
+        }
+
+        if (delegate != null) {
+            out.writeShort(1);
+            out.writeShort(Modifier.PRIVATE | Modifier.FINAL);
+            out.writeShort(pool.utf8(SourceRenderer.DELEGATE_FIELD));
+            out.writeShort(pool.utf8(delegate.descriptor));
+            out.writeShort(0);
+        } else if (counters != 0) {
+            out.writeShort(1);
+            out.writeShort(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL);
+            out.writeShort(pool.utf8(SourceRenderer.COUNTERS_FIELD));
+            out.writeShort(pool.utf8("[L" + LONG_ADDER + ";"));
+            out.writeShort(0);
+        } else {
+            out.writeShort(0);
+        }
+
+        List<MethodMetadata> methods = clazz.methodsToGen();
+        int extraMethods = delegate != null && hooks ? 2 : counters != 0 ? 3 : 0;
+        out.writeShort(methods.size() + 1 + extraMethods);
+        writeConstructor(out, superName, clazz.superConstructor(), delegate);
+        if (delegate != null && hooks) {
+            writeHook(out, SourceRenderer.BEFORE_HOOK);
+            writeHook(out, SourceRenderer.AFTER_HOOK);
+        }
+        if (counters != 0) {
+            writeCounters(out, methods, counters);
+        }
+        for (int i = 0; i < methods.size(); i++) {
+            MethodMetadata m = methods.get(i);
+            if (delegate != null) {
+                writeForwardingMethod(out, m, delegate);
+            } else if (counters != 0) {
+                writeCountingMethod(out, m, counters, i);
+            } else {
+                writeMethod(out, m);
+            }
+        }
+        out.writeShort(0);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(body.size() + 1024);
+        DataOutputStream header = new DataOutputStream(result);
+        header.writeInt(MAGIC);
+        header.writeShort(0);
+        header.writeShort(JAVA_11);
+        pool.writeTo(header);
+        body.writeTo(result);
+        return result.toByteArray();
+    }
+
+    /**
+     * @param delegate {@code null}, если реализация не передает вызовы делегату
+     */
+    private void writeConstructor(DataOutputStream out, String superName, MethodMetadata constructor,
+                                  Delegate delegate) throws IOException {
+        List<TypeRef> params = constructor == null ? List.of() : constructor.getParameterTypes();
+        String descriptor = constructor == null ? "()V" : constructor.getDescriptor();
+
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(ALOAD_0);
+        int stack = 1;
+        for (TypeRef param : params) {
+            stack += pushDefault(code, param);
+        }
+        code.write(INVOKESPECIAL);
+        writeShort(code, pool.methodRef(superName, MethodMetadata.CONSTRUCTOR_NAME, descriptor));
+
+        if (delegate != null) {
+            code.write(ALOAD_0);
+            code.write(ALOAD_1);
+            code.write(INVOKESTATIC);
+            writeShort(code, pool.methodRef("java/util/Objects", "requireNonNull",
+                    "(Ljava/lang/Object;)Ljava/lang/Object;"));
+            code.write(CHECKCAST);
+            writeShort(code, pool.classRef(delegate.owner));
+            code.write(PUTFIELD);
+            writeShort(code, delegate.field);
+            stack = Math.max(stack, 2);
+        }
+        code.write(RETURN);
+
+        writeMember(out, Modifier.PUBLIC, MethodMetadata.CONSTRUCTOR_NAME,
+                delegate == null ? "()V" : "(" + delegate.descriptor + ")V", code.toByteArray(), stack,
+                delegate == null ? 1 : 2, constructor == null ? List.of() : constructor.getExceptionTypes());
+    }
+
+    private void writeHook(DataOutputStream out, String name) throws IOException {
+        writeMember(out, Modifier.PROTECTED, name, "(Ljava/lang/String;)V", new byte[]{(byte) RETURN}, 0, 2,
+                List.of());
+    }
+
+    private void writeForwardingMethod(DataOutputStream out, MethodMetadata m, Delegate delegate)
+            throws IOException {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        TypeRef returnType = m.getReturnType();
+        int stack = slots(returnType);
+        if (delegate.hooks) {
+            stack = Math.max(stack, 2);
+            callHook(code, delegate.before, m);
+        }
+
+        code.write(ALOAD_0);
+        code.write(GETFIELD);
+        writeShort(code, delegate.field);
+        int local = 1;
+        for (TypeRef param : m.getParameterTypes()) {
+            code.write(loadOpcode(param));
+            code.write(local);
+            local += slots(param);
+        }
+        stack = Math.max(stack, local);
+
+        if (delegate.isInterface) {
+            code.write(INVOKEINTERFACE);
+            writeShort(code, pool.interfaceMethodRef(delegate.owner, m.getName(), m.getDescriptor()));
+            code.write(local);
+            code.write(0);
+        } else {
+            code.write(INVOKEVIRTUAL);
+            writeShort(code, pool.methodRef(delegate.owner, m.getName(), m.getDescriptor()));
+        }
+
+        if (delegate.hooks) {
+            // Результат остается на стеке под аргументами хука.
+            stack = Math.max(stack, slots(returnType) + 2);
+            callHook(code, delegate.after, m);
+        }
+        code.write(returnOpcode(returnType));
+
+        writeMember(out, m.getModifiers() & ~Modifier.ABSTRACT, m.getName(), m.getDescriptor(), code.toByteArray(),
+                stack, local, m.getExceptionTypes());
+    }
+
+    private void callHook(ByteArrayOutputStream code, int hook, MethodMetadata m) throws IOException {
+        code.write(ALOAD_0);
+        code.write(LDC_W);
+        writeShort(code, pool.string(m.getSignature()));
+        code.write(INVOKEVIRTUAL);
+        writeShort(code, hook);
+    }
+
+    /**
+     * Пишет статический инициализатор массива счетчиков, снимок и сброс.
+     */
+    private void writeCounters(DataOutputStream out, List<MethodMetadata> methods, int counters)
+            throws IOException {
+        int adder = pool.classRef(LONG_ADDER);
+
+        ByteArrayOutputStream init = new ByteArrayOutputStream();
+        pushInt(init, methods.size());
+        init.write(ANEWARRAY);
+        writeShort(init, adder);
+        init.write(PUTSTATIC);
+        writeShort(init, counters);
+        for (int i = 0; i < methods.size(); i++) {
+            init.write(GETSTATIC);
+            writeShort(init, counters);
+            pushInt(init, i);
+            init.write(NEW);
+            writeShort(init, adder);
+            init.write(DUP);
+            init.write(INVOKESPECIAL);
+            writeShort(init, pool.methodRef(LONG_ADDER, MethodMetadata.CONSTRUCTOR_NAME, "()V"));
+            init.write(AASTORE);
+        }
+        init.write(RETURN);
+        writeMember(out, Modifier.STATIC, "<clinit>", "()V", init.toByteArray(), 4, 0, List.of());
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        snapshot.write(NEW);
+        writeShort(snapshot, pool.classRef("java/util/LinkedHashMap"));
+        snapshot.write(DUP);
+        snapshot.write(INVOKESPECIAL);
+        writeShort(snapshot, pool.methodRef("java/util/LinkedHashMap", MethodMetadata.CONSTRUCTOR_NAME, "()V"));
+        for (int i = 0; i < methods.size(); i++) {
+            snapshot.write(DUP);
+            snapshot.write(LDC_W);
+            writeShort(snapshot, pool.string(methods.get(i).getSignature()));
+            loadCounter(snapshot, counters, i);
+            snapshot.write(INVOKEVIRTUAL);
+            writeShort(snapshot, pool.methodRef(LONG_ADDER, "sum", "()J"));
+            snapshot.write(INVOKESTATIC);
+            writeShort(snapshot, pool.methodRef("java/lang/Long", "valueOf", "(J)Ljava/lang/Long;"));
+            snapshot.write(INVOKEINTERFACE);
+            writeShort(snapshot, pool.interfaceMethodRef("java/util/Map", "put",
+                    "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;"));
+            snapshot.write(3);
+            snapshot.write(0);
+            snapshot.write(POP);
+        }
+        snapshot.write(ARETURN);
+        writeMember(out, Modifier.PUBLIC | Modifier.STATIC, SourceRenderer.SNAPSHOT_METHOD, "()Ljava/util/Map;",
+                snapshot.toByteArray(), 5, 0, List.of(),
+                "()Ljava/util/Map<Ljava/lang/String;Ljava/lang/Long;>;");
+
+        ByteArrayOutputStream reset = new ByteArrayOutputStream();
+        for (int i = 0; i < methods.size(); i++) {
+            loadCounter(reset, counters, i);
+            reset.write(INVOKEVIRTUAL);
+            writeShort(reset, pool.methodRef(LONG_ADDER, "reset", "()V"));
+        }
+        reset.write(RETURN);
+        writeMember(out, Modifier.PUBLIC | Modifier.STATIC, SourceRenderer.RESET_METHOD, "()V",
+                reset.toByteArray(), 2, 0, List.of());
+    }
+
+    private void writeCountingMethod(DataOutputStream out, MethodMetadata m, int counters, int index)
+            throws IOException {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        loadCounter(code, counters, index);
+        code.write(INVOKEVIRTUAL);
+        writeShort(code, pool.methodRef(LONG_ADDER, "increment", "()V"));
+        TypeRef returnType = m.getReturnType();
+        int stack = Math.max(2, pushDefault(code, returnType));
+        code.write(returnOpcode(returnType));
+
+        int locals = 1;
+        for (TypeRef param : m.getParameterTypes()) {
+            locals += slots(param);
+        }
+
+        writeMember(out, m.getModifiers() & ~Modifier.ABSTRACT, m.getName(), m.getDescriptor(), code.toByteArray(),
+                stack, locals, m.getExceptionTypes());
+    }
+
+    private static void loadCounter(ByteArrayOutputStream code, int counters, int index) {
+        code.write(GETSTATIC);
+        writeShort(code, counters);
+        pushInt(code, index);
+        code.write(AALOAD);
+    }
+
+    private static void pushInt(ByteArrayOutputStream code, int value) {
+        if (value <= 5) {
+            code.write(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else {
+            code.write(SIPUSH);
+            writeShort(code, value);
+        }
+    }
+
+    private void writeMethod(DataOutputStream out, MethodMetadata m) throws IOException {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        TypeRef returnType = m.getReturnType();
+        int stack = pushDefault(code, returnType);
+        code.write(returnOpcode(returnType));
+
+        int locals = 1;
+        for (TypeRef param : m.getParameterTypes()) {
+            locals += slots(param);
+        }
+
+        writeMember(out, m.getModifiers() & ~Modifier.ABSTRACT, m.getName(), m.getDescriptor(), code.toByteArray(),
+                stack, locals, m.getExceptionTypes());
+    }
+
+    private void writeMember(DataOutputStream out, int access, String name, String descriptor, byte[] code,
+                             int maxStack, int maxLocals, List<TypeRef> exceptions) throws IOException {
+        writeMember(out, access, name, descriptor, code, maxStack, maxLocals, exceptions, null);
+    }
+
+    /**
+     * @param signature обобщенная сигнатура для атрибута Signature или {@code null}
+     */
+    private void writeMember(DataOutputStream out, int access, String name, String descriptor, byte[] code,
+                             int maxStack, int maxLocals, List<TypeRef> exceptions, String signature)
+            throws IOException {
+        out.writeShort(access);
+        out.writeShort(pool.utf8(name));
+        out.writeShort(pool.utf8(descriptor));
+        out.writeShort(1 + (exceptions.isEmpty() ? 0 : 1) + (signature == null ? 0 : 1));
+
+        out.writeShort(pool.utf8("Code"));
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+
+        if (!exceptions.isEmpty()) {
+            out.writeShort(pool.utf8("Exceptions"));
+            out.writeInt(2 + 2 * exceptions.size());
+            out.writeShort(exceptions.size());
+            for (TypeRef exception : exceptions) {
+                out.writeShort(pool.classRef(internalName(exception)));
+            }
+        }
+
+        if (signature != null) {
+            out.writeShort(pool.utf8("Signature"));
+            out.writeInt(2);
+            out.writeShort(pool.utf8(signature));
+        }
+    }
+
+    /**
+     * @return сколько слотов стека заняло значение
+     */
+    private static int pushDefault(ByteArrayOutputStream code, TypeRef type) {
+        switch (type.getDescriptor().charAt(0)) {
+            case 'V':
+                return 0;
+            case 'J':
+                code.write(LCONST_0);
+                return 2;
+            case 'D':
+                code.write(DCONST_0);
+                return 2;
+            case 'F':
+                code.write(FCONST_0);
+                return 1;
+            case 'Z':
+            case 'B':
+            case 'C':
+            case 'S':
+            case 'I':
+                code.write(ICONST_0);
+                return 1;
+            default:
+                code.write(ACONST_NULL);
+                return 1;
+        }
+    }
+
+    private static int returnOpcode(TypeRef type) {
+        switch (type.getDescriptor().charAt(0)) {
+            case 'V':
+                return RETURN;
+            case 'J':
+                return LRETURN;
+            case 'D':
+                return DRETURN;
+            case 'F':
+                return FRETURN;
+            case 'Z':
+            case 'B':
+            case 'C':
+            case 'S':
+            case 'I':
+                return IRETURN;
+            default:
+                return ARETURN;
+        }
+    }
+
+    private static int loadOpcode(TypeRef type) {
+        switch (type.getDescriptor().charAt(0)) {
+            case 'J':
+                return LLOAD;
+            case 'D':
+                return DLOAD;
+            case 'F':
+                return FLOAD;
+            case 'Z':
+            case 'B':
+            case 'C':
+            case 'S':
+            case 'I':
+                return ILOAD;
+            default:
+                return ALOAD;
+        }
+    }
+
+    private static int slots(TypeRef type) {
+        char tag = type.getDescriptor().charAt(0);
+        return tag == 'J' || tag == 'D' ? 2 : 1;
+    }
+
+    private static String internalName(String className) {
+        return className.replace('.', '/');
+    }
+
+    private static String internalName(TypeRef type) {
+        String descriptor = type.getDescriptor();
+        return descriptor.startsWith("L") ? descriptor.substring(1, descriptor.length() - 1) : descriptor;
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Ссылки пула констант, нужные реализации, которая передает вызовы делегату.
+     */
+    private final class Delegate {
+        final String owner;
+        final String descriptor;
+        final boolean isInterface;
+        final boolean hooks;
+        final int field;
+        final int before;
+        final int after;
+
+        Delegate(ClassMetadata clazz, String implName, boolean hooks) throws IOException {
+            this.owner = internalName(clazz.getName());
+            this.descriptor = 'L' + owner + ';';
+            this.isInterface = clazz.isInterface();
+            this.hooks = hooks;
+            this.field = pool.fieldRef(implName, SourceRenderer.DELEGATE_FIELD, descriptor);
+            this.before = hooks ? pool.methodRef(implName, SourceRenderer.BEFORE_HOOK, "(Ljava/lang/String;)V") : 0;
+            this.after = hooks ? pool.methodRef(implName, SourceRenderer.AFTER_HOOK, "(Ljava/lang/String;)V") : 0;
+        }
+    }
+
+    private static final class ConstantPool {
+        private static final int CONSTANT_UTF8 = 1;
+        private static final int CONSTANT_CLASS = 7;
+        private static final int CONSTANT_STRING = 8;
+        private static final int CONSTANT_FIELDREF = 9;
+        private static final int CONSTANT_METHODREF = 10;
+        private static final int CONSTANT_INTERFACE_METHODREF = 11;
+        private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> indices = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) throws IOException {
+            Integer index = indices.get("U" + value);
+            if (index != null) {
+                return index;
+            }
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+            return register("U" + value);
+        }
+
+        int classRef(String internalName) throws IOException {
+            Integer index = indices.get("C" + internalName);
+            if (index != null) {
+                return index;
+            }
+            int name = utf8(internalName);
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+            return register("C" + internalName);
+        }
+
+        int string(String value) throws IOException {
+            Integer index = indices.get("S" + value);
+            if (index != null) {
+                return index;
+            }
+            int utf8 = utf8(value);
+            out.writeByte(CONSTANT_STRING);
+            out.writeShort(utf8);
+            return register("S" + value);
+        }
+
+        int fieldRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(CONSTANT_FIELDREF, "F", owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(CONSTANT_METHODREF, "M", owner, name, descriptor);
+        }
+
+        int interfaceMethodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(CONSTANT_INTERFACE_METHODREF, "I", owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String kind, String owner, String name, String descriptor)
+                throws IOException {
+            String key = kind + owner + '.' + name + descriptor;
+            Integer index = indices.get(key);
+            if (index != null) {
+                return index;
+            }
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+            return register(key);
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            Integer index = indices.get("N" + name + descriptor);
+            if (index != null) {
+                return index;
+            }
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            return register("N" + name + descriptor);
+        }
+
+        private int register(String key) {
+            indices.put(key, count);
+            return count++;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ru.hse.java.implementor;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ограниченный кэш загрузчиков классов по нормализованному пути до директории.
+ * Загрузчики выдаются в аренду: вытесненный загрузчик закрывается, только когда закрыта последняя его аренда.
+ */
+final class ClassLoaderCache implements AutoCloseable {
+    static final int DEFAULT_CAPACITY = 16;
+
+    private final Map<Path, CachedLoader> loaders;
+
+    ClassLoaderCache(int capacity) {
+        loaders = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedLoader> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                CachedLoader entry = eldest.getValue();
+                entry.evicted = true;
+                if (entry.leases == 0) {
+                    closeQuietly(entry.loader);
+                }
+                return true;
+            }
+        };
+    }
+
+    static Path normalize(String directoryPath) throws ImplementorException {
+        try {
+            return Paths.get(directoryPath).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            throw new ImplementorException("Путь до входного класса не найден", e);
+        }
+    }
+
+    /**
+     * Выдает загрузчик для директории; аренду нужно закрыть, когда классы из нее больше не загружаются.
+     */
+    synchronized Lease acquire(String directoryPath) throws ImplementorException {
+        Path key = normalize(directoryPath);
+        CachedLoader entry = loaders.get(key);
+        if (entry == null) {
+            try {
+                entry = new CachedLoader(new URLClassLoader(new URL[]{key.toUri().toURL()}));
+            } catch (MalformedURLException e) {
+                throw new ImplementorException("Путь до входного класса не найден", e);
+            }
+            loaders.put(key, entry);
+        }
+        entry.leases++;
+        return new Lease(entry);
+    }
+
+    private synchronized void release(CachedLoader entry) {
+        entry.leases--;
+        if (entry.leases == 0 && entry.evicted) {
+            closeQuietly(entry.loader);
+        }
+    }
+
+    /**
+     * Закрывает загрузчики в кэше; вытесненные загрузчики с незакрытой арендой закроются вместе с ней.
+     */
+    @Override
+    public void close() throws ImplementorException {
+        List<URLClassLoader> toClose = new ArrayList<>();
+        synchronized (this) {
+            for (CachedLoader entry : loaders.values()) {
+                entry.evicted = true;
+                if (entry.leases == 0) {
+                    toClose.add(entry.loader);
+                }
+            }
+            loaders.clear();
+        }
+
+        IOException failure = null;
+        for (URLClassLoader cl : toClose) {
+            try {
+                cl.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw new ImplementorException("Невозможно закрыть загрузчик классов.", failure);
+        }
+    }
+
+    private static void closeQuietly(URLClassLoader cl) {
+        try {
+            cl.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class CachedLoader {
+        final URLClassLoader loader;
+        int leases;
+        boolean evicted;
+
+        CachedLoader(URLClassLoader loader) {
+            this.loader = loader;
+        }
+    }
+
+    /**
+     * Аренда загрузчика из кэша. Повторное закрытие ничего не делает.
+     */
+    final class Lease implements AutoCloseable {
+        private final CachedLoader entry;
+        private boolean released;
+
+        private Lease(CachedLoader entry) {
+            this.entry = entry;
+        }
+
+        ClassLoader getLoader() {
+            return entry.loader;
+        }
+
+        @Override
+        public void close() {
+            synchronized (ClassLoaderCache.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            release(entry);
+        }
+    }
+}
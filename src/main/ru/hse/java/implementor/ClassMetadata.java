@@ -0,0 +1,259 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Описание класса/интерфейса, по которому генерируется реализация.
+ * Видимые методы вычисляются один раз на экземпляр и переиспользуются подтипами.
+ */
+abstract class ClassMetadata {
+    private volatile Map<String, MethodMetadata> members;
+    private volatile String fingerprint;
+
+    /**
+     * @return бинарное имя, например {@code java.util.Map$Entry}
+     */
+    abstract String getName();
+
+    abstract String getCanonicalName();
+
+    abstract String getSimpleName();
+
+    abstract String getPackageName();
+
+    abstract int getModifiers();
+
+    @Nullable
+    abstract ClassMetadata getSuperclass();
+
+    abstract List<? extends ClassMetadata> getInterfaces();
+
+    abstract List<MethodMetadata> getDeclaredMethods();
+
+    abstract List<MethodMetadata> getDeclaredConstructors();
+
+    /**
+     * @return SHA-256 байтов class файла или {@code null}, если байты недоступны
+     */
+    @Nullable
+    abstract byte[] classFileDigest();
+
+    boolean isInterface() {
+        return Modifier.isInterface(getModifiers());
+    }
+
+    String getImplSimpleName() {
+        return getSimpleName() + "Impl";
+    }
+
+    /**
+     * Реализации типов из {@code java.*} кладутся в default пакет, остальные - в пакет исходного типа.
+     */
+    String getImplPackageName() {
+        String packageName = getPackageName();
+        return packageName.startsWith("java.") ? "" : packageName;
+    }
+
+    /**
+     * @return полное имя реализации, например {@code study.MyInterfaceImpl}
+     */
+    String getImplClassName() {
+        String packageName = getImplPackageName();
+        return packageName.isEmpty() ? getImplSimpleName() : packageName + "." + getImplSimpleName();
+    }
+
+    /**
+     * Видимые (public/protected, не static) методы: по одному на каждую стертую сигнатуру. Из нескольких
+     * объявлений с одной сигнатурой выбирается то, что переопределяет остальные: объявленное в самом типе,
+     * затем объявленное в классе, а из объявленных в интерфейсах - в самом нижнем интерфейсе иерархии.
+     * Из объявлений в несвязанных интерфейсах выбирается последнее по порядку супертипов.
+     */
+    Map<String, MethodMetadata> members() {
+        Map<String, MethodMetadata> result = members;
+        if (result == null) {
+            result = resolveMembers();
+            members = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true}, если видимые методы уже вычислены и {@link #members()} вернет их из кэша
+     */
+    boolean isResolved() {
+        return members != null;
+    }
+
+    /**
+     * Вычисляет таблицу видимых методов по супертипам; подклассы, у которых она уже есть, возвращают ее.
+     */
+    Map<String, MethodMetadata> resolveMembers() {
+        Map<String, MethodMetadata> methods = new LinkedHashMap<>();
+
+        for (ClassMetadata i : getInterfaces()) {
+            inherit(methods, i.members());
+        }
+
+        ClassMetadata superclass = getSuperclass();
+        if (superclass != null) {
+            inherit(methods, superclass.members());
+        }
+
+        for (MethodMetadata m : getDeclaredMethods()) {
+            int modifiers = m.getModifiers();
+            if ((Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) &&
+                    !Modifier.isStatic(modifiers) &&
+                    !m.isBridge()) {
+                methods.put(m.getSignature(), m);
+            }
+        }
+
+        return Collections.unmodifiableMap(methods);
+    }
+
+    private void inherit(Map<String, MethodMetadata> methods, Map<String, MethodMetadata> inherited) {
+        for (MethodMetadata m : inherited.values()) {
+            MethodMetadata existing = methods.get(m.getSignature());
+            if (existing == null || overrides(m, existing)) {
+                methods.put(m.getSignature(), m);
+            }
+        }
+    }
+
+    /**
+     * Метод класса переопределяет метод интерфейса, метод интерфейса - метод своего суперинтерфейса.
+     * Если ни одно из объявлений не переопределяет другое, побеждает {@code m}, пришедший позже.
+     */
+    private boolean overrides(MethodMetadata m, MethodMetadata existing) {
+        if (m == existing) {
+            return false;
+        }
+        if (!m.isDeclaredInInterface() || !existing.isDeclaredInInterface()) {
+            return !m.isDeclaredInInterface();
+        }
+        ClassMetadata existingType = findSupertype(existing.getDeclaringClass());
+        return existingType == null || !existingType.isSubtypeOf(m.getDeclaringClass());
+    }
+
+    @Nullable
+    private ClassMetadata findSupertype(String name) {
+        if (getName().equals(name)) {
+            return this;
+        }
+        for (ClassMetadata i : getInterfaces()) {
+            ClassMetadata result = i.findSupertype(name);
+            if (result != null) {
+                return result;
+            }
+        }
+        ClassMetadata superclass = getSuperclass();
+        return superclass == null ? null : superclass.findSupertype(name);
+    }
+
+    private boolean isSubtypeOf(String name) {
+        return findSupertype(name) != null;
+    }
+
+    /**
+     * Методы, которые нужно реализовать, в порядке сигнатур: порядок методов из рефлексии не определен,
+     * а сгенерированный код не должен зависеть ни от него, ни от способа чтения метаданных.
+     */
+    List<MethodMetadata> methodsToGen() {
+        List<MethodMetadata> methods = new ArrayList<>();
+        for (MethodMetadata m : members().values()) {
+            if (Modifier.isAbstract(m.getModifiers()) || m.isDeclaredInInterface()) {
+                methods.add(m);
+            }
+        }
+        methods.sort(Comparator.comparing(MethodMetadata::getSignature));
+        return methods;
+    }
+
+    /**
+     * Конструктор, который вызывает реализация: доступный наследнику конструктор с параметрами,
+     * из нескольких - с наименьшей сигнатурой.
+     *
+     * @return {@code null}, если достаточно конструктора по умолчанию
+     */
+    @Nullable
+    MethodMetadata superConstructor() {
+        MethodMetadata result = null;
+        for (MethodMetadata constructor : getDeclaredConstructors()) {
+            int modifiers = constructor.getModifiers();
+            if ((Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) &&
+                    !constructor.getParameterTypes().isEmpty() &&
+                    (result == null || constructor.getSignature().compareTo(result.getSignature()) < 0)) {
+                result = constructor;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Отпечаток входа генерации: хэш class файла типа и отпечатков всех его супертипов.
+     *
+     * @return {@code null}, если байты какого-то из типов иерархии недоступны
+     */
+    @Nullable
+    String fingerprint() {
+        String result = fingerprint;
+        if (result != null) {
+            return result;
+        }
+
+        byte[] digest = classFileDigest();
+        if (digest == null) {
+            return null;
+        }
+        MessageDigest md = sha256();
+        md.update(digest);
+
+        List<ClassMetadata> supertypes = new ArrayList<>(getInterfaces());
+        if (getSuperclass() != null) {
+            supertypes.add(getSuperclass());
+        }
+        for (ClassMetadata supertype : supertypes) {
+            String supertypeFingerprint = supertype.fingerprint();
+            if (supertypeFingerprint == null) {
+                return null;
+            }
+            md.update(supertypeFingerprint.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        result = hex(md.digest());
+        fingerprint = result;
+        return result;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,184 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.reflect.Modifier;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Обходит директорию с class файлами, jar архив или модуль JDK и находит в нем классы, которые можно реализовать,
+ * по одному только заголовку class файла, не загружая классы в JVM.
+ */
+final class ClassPathScanner implements AutoCloseable {
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final Path root;
+    private final FileSystem archive;
+    private final Set<String> packages;
+
+    /**
+     * @param packages пакеты, классы из которых нужно рассматривать; {@code null} - все пакеты
+     */
+    private ClassPathScanner(Path root, @Nullable FileSystem archive, @Nullable Set<String> packages) {
+        this.root = root;
+        this.archive = archive;
+        this.packages = packages;
+    }
+
+    /**
+     * @param path директория с class файлами или jar архив
+     */
+    static ClassPathScanner open(Path path) throws ImplementorException {
+        if (Files.isDirectory(path)) {
+            return new ClassPathScanner(path, null, null);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new ImplementorException("Путь до входного класса не найден");
+        }
+        try {
+            FileSystem archive = FileSystems.newFileSystem(path, (ClassLoader) null);
+            return new ClassPathScanner(archive.getPath("/"), archive, null);
+        } catch (IOException | RuntimeException e) {
+            throw new ImplementorException("Невозможно прочитать входной класс.", e);
+        }
+    }
+
+    /**
+     * Классы из неэкспортируемых пакетов модуля не видны снаружи, поэтому рассматриваются только
+     * пакеты, экспортируемые без ограничений.
+     *
+     * @param moduleName имя модуля JDK, например {@code java.sql}
+     */
+    static ClassPathScanner module(String moduleName) throws ImplementorException {
+        ModuleDescriptor descriptor = ModuleFinder.ofSystem().find(moduleName).
+                orElseThrow(() -> new ImplementorException("Модуль не найден.")).
+                descriptor();
+        Set<String> exported = descriptor.exports().stream().
+                filter(export -> !export.isQualified()).
+                map(ModuleDescriptor.Exports::source).
+                collect(Collectors.toSet());
+        return new ClassPathScanner(JrtImage.get().module(moduleName), null, exported);
+    }
+
+    /**
+     * Корень, относительно которого class файлы лежат по своим пакетам; для jar - корень архива.
+     */
+    Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Параллельно обходит дерево и передает в `action` каждый class файл. Поддиректории обходятся отдельными
+     * задачами пула, в котором вызван метод, а в памяти одновременно находятся только списки открытых директорий.
+     *
+     * @throws UncheckedIOException если директорию не удалось прочитать
+     */
+    void forEachClassFile(Consumer<Path> action) {
+        forEachClassFile(root, action);
+    }
+
+    private void forEachClassFile(Path directory, Consumer<Path> action) {
+        List<Path> entries;
+        try (Stream<Path> list = Files.list(directory)) {
+            // jrt:/ повторяет в списке файлы, которые уже были прочитаны до обхода их директории,
+            // причем такие пути не равны по equals, поэтому дубликаты отбрасываются по имени.
+            entries = new ArrayList<>(list.collect(Collectors.toMap(
+                    entry -> entry.getFileName().toString(), entry -> entry, (first, second) -> first)).values());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entries.parallelStream().forEach(entry -> {
+            if (Files.isDirectory(entry)) {
+                if (!entry.equals(root.resolve("META-INF"))) {
+                    forEachClassFile(entry, action);
+                }
+            } else if (isClassFile(entry)) {
+                action.accept(entry);
+            }
+        });
+    }
+
+    private static boolean isClassFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(CLASS_SUFFIX) && !name.equals("module-info.class") && !name.equals("package-info.class");
+    }
+
+    /**
+     * @return бинарное имя класса, например {@code java.util.Map$Entry}
+     */
+    String className(Path classFile) {
+        String name = root.relativize(classFile).toString().replace(classFile.getFileSystem().getSeparator(), ".");
+        return name.substring(0, name.length() - CLASS_SUFFIX.length());
+    }
+
+    /**
+     * Открытый интерфейс или абстрактный класс из подходящего пакета; остальные классы реализовать нельзя,
+     * и они отбрасываются до того, как их загрузят или разберут целиком.
+     */
+    boolean isCandidate(Path classFile, String className) throws ImplementorException {
+        if (packages != null) {
+            int lastDot = className.lastIndexOf('.');
+            if (!packages.contains(lastDot < 0 ? "" : className.substring(0, lastDot))) {
+                return false;
+            }
+        }
+        int access = readAccessFlags(classFile);
+        if (!Modifier.isPublic(access) ||
+                (access & (ClassFileReader.ACC_SYNTHETIC | ClassFileReader.ACC_MODULE)) != 0 ||
+                !(Modifier.isInterface(access) || Modifier.isAbstract(access))) {
+            return false;
+        }
+        return isAccessibleOuter(classFile);
+    }
+
+    /**
+     * Вложенный класс доступен, только если открыты все объемлющие его классы.
+     */
+    private static boolean isAccessibleOuter(Path classFile) throws ImplementorException {
+        String name = classFile.getFileName().toString();
+        int dollar = name.lastIndexOf('$');
+        while (dollar > 0) {
+            name = name.substring(0, dollar);
+            Path outer = classFile.resolveSibling(name + CLASS_SUFFIX);
+            if (Files.isRegularFile(outer) && !Modifier.isPublic(readAccessFlags(outer))) {
+                return false;
+            }
+            dollar = name.lastIndexOf('$');
+        }
+        return true;
+    }
+
+    private static int readAccessFlags(Path classFile) throws ImplementorException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(classFile))) {
+            return ClassFileReader.readAccessFlags(in);
+        } catch (IOException e) {
+            throw new ImplementorException("Невозможно прочитать входной класс.", e);
+        }
+    }
+
+    @Override
+    public void close() throws ImplementorException {
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                throw new ImplementorException("Невозможно прочитать входной класс.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+public final class CompiledImplementation {
+    private final String className;
+    private final String implClassName;
+    private final byte[] classBytes;
+    private final List<String> diagnostics;
+
+    private CompiledImplementation(String className, String implClassName, byte[] classBytes,
+                                   List<String> diagnostics) {
+        this.className = className;
+        this.implClassName = implClassName;
+        this.classBytes = classBytes;
+        this.diagnostics = List.copyOf(diagnostics);
+    }
+
+    @NotNull
+    public static CompiledImplementation success(String className, String implClassName, byte[] classBytes) {
+        return new CompiledImplementation(className, implClassName, classBytes, List.of());
+    }
+
+    @NotNull
+    public static CompiledImplementation failure(String className, String implClassName, String diagnostic) {
+        return new CompiledImplementation(className, implClassName, null, List.of(diagnostic));
+    }
+
+    @NotNull
+    public static CompiledImplementation failure(String className, String implClassName, List<String> diagnostics) {
+        return new CompiledImplementation(className, implClassName, null, diagnostics);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return полное имя реализации или {@code null}, если входной класс не удалось прочитать
+     */
+    @Nullable
+    public String getImplClassName() {
+        return implClassName;
+    }
+
+    /**
+     * @return байткод реализации или {@code null}, если генерация или компиляция не удалась
+     */
+    @Nullable
+    public byte[] getClassBytes() {
+        return classBytes;
+    }
+
+    public List<String> getDiagnostics() {
+        return diagnostics;
+    }
+
+    public boolean isSuccess() {
+        return classBytes != null;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? className + " -> " + implClassName : className + ": " + diagnostics;
+    }
+}
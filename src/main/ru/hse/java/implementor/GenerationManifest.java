@@ -0,0 +1,101 @@
+package ru.hse.java.implementor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Манифест инкрементальной генерации в выходной директории:
+ * для каждой реализации хранит отпечаток входных class файлов, из которых она получена.
+ */
+final class GenerationManifest {
+    static final String FILE_NAME = ".implementor-manifest";
+
+    private final Path file;
+    private final ConcurrentMap<String, String> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger modifications = new AtomicInteger();
+    private int savedModifications;
+
+    private GenerationManifest(Path file) {
+        this.file = file;
+    }
+
+    static GenerationManifest load(Path outputDirectory) {
+        GenerationManifest manifest = new GenerationManifest(outputDirectory.resolve(FILE_NAME));
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(manifest.file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return manifest;
+        } catch (IOException | IllegalArgumentException e) {
+            // Испорченный манифест означает только полную перегенерацию.
+            return manifest;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            manifest.entries.put(key, properties.getProperty(key));
+        }
+        return manifest;
+    }
+
+    /**
+     * @param target файл реализации, который должен существовать, чтобы генерацию можно было пропустить
+     */
+    boolean isUpToDate(String implClassName, String fingerprint, Path target) {
+        return fingerprint != null && fingerprint.equals(entries.get(implClassName)) && Files.isRegularFile(target);
+    }
+
+    void put(String implClassName, String fingerprint) {
+        if (fingerprint == null) {
+            if (entries.remove(implClassName) != null) {
+                modifications.incrementAndGet();
+            }
+        } else if (!fingerprint.equals(entries.put(implClassName, fingerprint))) {
+            modifications.incrementAndGet();
+        }
+    }
+
+    /**
+     * Записывает манифест, если он изменился с последней успешной записи. Если запись не удалась,
+     * изменения остаются несохраненными и будут записаны следующим вызовом.
+     */
+    synchronized void save() throws IOException {
+        // Снимок entries берется после чтения счетчика, поэтому содержит все изменения до него.
+        int current = modifications.get();
+        if (current == savedModifications) {
+            return;
+        }
+
+        Files.createDirectories(file.getParent());
+        // Не Files.createTempFile: у манифеста должны быть обычные права, а не только для владельца.
+        Path tmp = file.resolveSibling(file.getFileName() + "." +
+                Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, String> entry : new TreeMap<>(entries).entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    writer.write(entry.getValue());
+                    writer.write('\n');
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        savedModifications = current;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.hse.java.implementor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Вызов implement целиком в JDK Flight Recorder.
+ */
+@Name("ru.hse.java.implementor.Implement")
+@Label("Implement")
+@Category("Implementor")
+@Description("Генерация реализации одного класса")
+@StackTrace(false)
+final class ImplementEvent extends jdk.jfr.Event {
+    @Label("Class")
+    String className;
+
+    @Label("Implementation")
+    String implClassName;
+
+    @Label("Methods")
+    int methodCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("Resolution Cached")
+    boolean resolutionCached;
+
+    @Label("Up To Date")
+    boolean upToDate;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,127 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Замеры одного вызова implement: время каждой фазы, число сгенерированных методов, объем записи
+ * и попадания в кэши.
+ */
+public final class ImplementMetrics {
+
+    public enum Phase {
+        /**
+         * Поиск и загрузка входного класса.
+         */
+        LOAD,
+        /**
+         * Вычисление отпечатка входа в инкрементальном режиме.
+         */
+        FINGERPRINT,
+        /**
+         * Разрешение методов, которые нужно реализовать.
+         */
+        RESOLVE,
+        /**
+         * Печать исходного кода или байткода в буфер.
+         */
+        RENDER,
+        /**
+         * Создание директорий и запись файла.
+         */
+        WRITE
+    }
+
+    private final String className;
+    private final String implClassName;
+    private final ImplementorException error;
+    private final long[] nanos;
+    private final int methodCount;
+    private final long bytesWritten;
+    private final boolean resolutionCached;
+    private final boolean upToDate;
+
+    ImplementMetrics(String className, String implClassName, ImplementorException error, long[] nanos,
+                     int methodCount, long bytesWritten, boolean resolutionCached, boolean upToDate) {
+        this.className = className;
+        this.implClassName = implClassName;
+        this.error = error;
+        this.nanos = nanos;
+        this.methodCount = methodCount;
+        this.bytesWritten = bytesWritten;
+        this.resolutionCached = resolutionCached;
+        this.upToDate = upToDate;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    @Nullable
+    public String getImplClassName() {
+        return implClassName;
+    }
+
+    @Nullable
+    public ImplementorException getError() {
+        return error;
+    }
+
+    /**
+     * @return время фазы в наносекундах; 0, если до фазы дело не дошло
+     */
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        return total;
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    /**
+     * @return число записанных байтов; 0, если файл не перезаписывался
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return {@code true}, если методы входного класса были разрешены раньше и взяты из кэша
+     */
+    public boolean isResolutionCached() {
+        return resolutionCached;
+    }
+
+    /**
+     * @return {@code true}, если в инкрементальном режиме реализация оказалась актуальной и не генерировалась
+     */
+    public boolean isUpToDate() {
+        return upToDate;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(className);
+        for (Phase phase : Phase.values()) {
+            out.append(' ').append(phase.name().toLowerCase()).append('=').append(getNanos(phase) / 1000).append("us");
+        }
+        out.append(" methods=").append(methodCount).append(" bytes=").append(bytesWritten);
+        if (resolutionCached) {
+            out.append(" cached");
+        }
+        if (upToDate) {
+            out.append(" up-to-date");
+        }
+        if (error != null) {
+            out.append(" error=").append(error.getMessage());
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Замеряет фазы одного вызова implement и отдает их в JFR и в {@link MetricsListener}.
+ * Используется одним потоком за раз: при конвейерной записи фаза записи и сам замер завершаются
+ * в потоке записи.
+ */
+final class ImplementTrace {
+    private static final ImplementMetrics.Phase[] phases = ImplementMetrics.Phase.values();
+
+    private final String className;
+    private final MetricsListener listener;
+    private final ImplementEvent event = new ImplementEvent();
+    private final long[] nanos = new long[phases.length];
+
+    private ImplementMetrics.Phase phase;
+    private long phaseStart;
+    private PhaseEvent phaseEvent;
+
+    int methodCount;
+    long bytesWritten;
+    boolean resolutionCached;
+    boolean upToDate;
+
+    ImplementTrace(String className, @Nullable MetricsListener listener) {
+        this.className = className;
+        this.listener = listener;
+        event.begin();
+    }
+
+    void begin(ImplementMetrics.Phase phase) {
+        end();
+        this.phase = phase;
+        phaseEvent = new PhaseEvent();
+        phaseEvent.begin();
+        phaseStart = System.nanoTime();
+    }
+
+    void end() {
+        if (phase == null) {
+            return;
+        }
+        nanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+        phaseEvent.end();
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.className = className;
+            phaseEvent.phase = phase.name();
+            phaseEvent.commit();
+        }
+        phase = null;
+        phaseEvent = null;
+    }
+
+    /**
+     * @param error причина неудачи; исключения, отличные от {@link ImplementorException}, оборачиваются в него
+     */
+    void finish(@Nullable String implClassName, @Nullable Throwable error) {
+        ImplementorException failure = error == null || error instanceof ImplementorException ?
+                (ImplementorException) error : new ImplementorException(error.toString(), error);
+        end();
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = className;
+            event.implClassName = implClassName;
+            event.methodCount = methodCount;
+            event.bytesWritten = bytesWritten;
+            event.resolutionCached = resolutionCached;
+            event.upToDate = upToDate;
+            event.error = failure == null ? null : failure.getMessage();
+            event.commit();
+        }
+        if (listener != null) {
+            listener.onImplemented(new ImplementMetrics(className, implClassName, failure, nanos,
+                    methodCount, bytesWritten, resolutionCached, upToDate));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.hse.java.implementor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Генерирует class файл реализации в памяти и определяет его в JVM, минуя диск и javac.
+ *
+ * Реализации кэшируются в {@link ClassValue} входного типа, то есть ссылка идет от входного типа
+ * к реализации, и кэш не мешает выгрузке входного типа вместе с его загрузчиком.
+ * Каждая реализация определяется собственным загрузчиком, родитель которого - загрузчик входного типа:
+ * так из реализации видны те же типы, что и из входного, и реализации выгружаются независимо друг от друга.
+ */
+final class ImplementationDefiner {
+    private static final ConcurrentMap<String, ImplementationDefiner> definers = new ConcurrentHashMap<>();
+
+    private final ImplementationMode mode;
+    private final boolean hooks;
+    private final ClassValue<Class<?>> implementations = new ClassValue<>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            try {
+                return define(type);
+            } catch (ImplementorException e) {
+                // ClassValue не запоминает значение, если вычисление завершилось исключением.
+                throw new DefinitionException(e);
+            }
+        }
+    };
+
+    private ImplementationDefiner(ImplementationMode mode, boolean hooks) {
+        this.mode = mode;
+        this.hooks = hooks;
+    }
+
+    /**
+     * @param hooks учитывается только для {@link ImplementationMode#FORWARDING}
+     */
+    static ImplementationDefiner of(ImplementationMode mode, boolean hooks) {
+        boolean forwardingHooks = mode == ImplementationMode.FORWARDING && hooks;
+        return definers.computeIfAbsent(mode + (forwardingHooks ? "/hooks" : ""),
+                key -> new ImplementationDefiner(mode, forwardingHooks));
+    }
+
+    /**
+     * @param type класс/интерфейс, уже проверенный на то, что реализацию можно создать
+     */
+    Class<?> implementation(Class<?> type) throws ImplementorException {
+        try {
+            return implementations.get(type);
+        } catch (DefinitionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Class<?> define(Class<?> type) throws ImplementorException {
+        ClassMetadata metadata = ReflectionClassMetadata.of(type);
+        byte[] bytes = ClassFileWriter.write(metadata, mode, hooks);
+        try {
+            return new ImplementationLoader(type.getClassLoader()).define(metadata.getImplClassName(), bytes);
+        } catch (LinkageError e) {
+            throw new ImplementorException("Невозможно загрузить сгенерированный класс.", e);
+        }
+    }
+
+    private static final class ImplementationLoader extends ClassLoader {
+        static {
+            registerAsParallelCapable();
+        }
+
+        ImplementationLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class DefinitionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DefinitionException(ImplementorException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized ImplementorException getCause() {
+            return (ImplementorException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.hse.java.implementor;
+
+/**
+ * Что делают методы сгенерированной реализации.
+ */
+public enum ImplementationMode {
+    /**
+     * Возвращают значения по умолчанию.
+     */
+    STUB,
+
+    /**
+     * Передают вызов объекту того же типа, полученному в конструкторе: статически типизированная
+     * замена декоратору на {@link java.lang.reflect.Proxy} без reflection, упаковки аргументов
+     * и массива {@code Object[]} на каждый вызов.
+     */
+    FORWARDING,
+
+    /**
+     * Возвращают значения по умолчанию, как {@link #STUB}, и перед этим увеличивают счетчик вызовов метода.
+     * Счетчики - {@link java.util.concurrent.atomic.LongAdder}, поэтому одновременные вызовы из многих потоков
+     * почти не мешают друг другу. Реализация получает статические методы {@code callCounts()},
+     * возвращающий снимок счетчиков по стертым сигнатурам методов, и {@code resetCallCounts()}.
+     */
+    COUNTING
+}
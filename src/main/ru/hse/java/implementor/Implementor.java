@@ -1,6 +1,9 @@
 package ru.hse.java.implementor;
 
 import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public interface Implementor {
 
@@ -45,4 +48,58 @@ public interface Implementor {
      */
     String implementFromStandardLibrary(final String className) throws ImplementorException;
 
+    /**
+     * Генерирует реализацию данного класса/интерфейса в памяти и загружает ее в текущую JVM, не создавая файлов
+     * и не вызывая компилятор. Повторный вызов для того же класса возвращает тот же {@link Class}.
+     *
+     * @param classToImplement класс/интерфейс, который требуется реализовать
+     * @return загруженная реализация
+     * @throws ImplementorException если невозможно создать наследника класса или загрузить реализацию;
+     *   реализация по умолчанию не поддерживает генерацию в памяти и бросает его всегда
+     */
+    default <T> Class<? extends T> implementClass(final Class<T> classToImplement) throws ImplementorException {
+        throw new ImplementorException("Реализация в памяти не поддерживается.");
+    }
+
+    /**
+     * Пакетная версия {@link #implementFromDirectory(String, String)}: реализует все классы из `classNames`,
+     * которые лежат в папке `directoryPath`.
+     * Ошибка на одном классе не прерывает обработку остальных.
+     *
+     * @param directoryPath путь до директории, которая содержит данные классы/интерфейсы
+     * @param classNames полные названия классов/интерфейсов, которые требуется реализовать
+     * @return результаты в том же порядке, что и `classNames`: полное имя нового класса или ошибка
+     */
+    default List<ImplementorResult> implementAllFromDirectory(final String directoryPath,
+                                                              final Collection<String> classNames) {
+        List<ImplementorResult> results = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                results.add(ImplementorResult.success(className, implementFromDirectory(directoryPath, className)));
+            } catch (ImplementorException e) {
+                results.add(ImplementorResult.failure(className, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Пакетная версия {@link #implementFromStandardLibrary(String)}.
+     * Ошибка на одном классе не прерывает обработку остальных.
+     *
+     * @param classNames полные названия классов/интерфейсов, которые требуется реализовать
+     * @return результаты в том же порядке, что и `classNames`: полное имя нового класса или ошибка
+     */
+    default List<ImplementorResult> implementAllFromStandardLibrary(final Collection<String> classNames) {
+        List<ImplementorResult> results = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                results.add(ImplementorResult.success(className, implementFromStandardLibrary(className)));
+            } catch (ImplementorException e) {
+                results.add(ImplementorResult.failure(className, e));
+            }
+        }
+        return results;
+    }
+
 }
@@ -0,0 +1,300 @@
+package ru.hse.java.implementor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Командная строка: реализует за один запуск JVM все перечисленные классы, список классов из файла,
+ * все подходящие классы директории, jar архива или модуля JDK, либо запускает {@link ImplementorDaemon},
+ * либо строит индекс типов JDK для {@link SimpleImplementor#setJdkIndex(String)}.
+ *
+ * Для каждого класса печатает в стандартный выход {@code className -> implClassName}, ошибки - в стандартный
+ * поток ошибок. Код возврата 0, если все классы реализованы, 1, если хотя бы один не удалось,
+ * 2 при неверных аргументах.
+ */
+public final class ImplementorCli {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Использование: implementor [параметры] [className...]",
+            "  -o, --output <dir>        директория для сгенерированных классов, по умолчанию текущая",
+            "  -d, --directory <dir>     директория с class файлами; без нее классы ищутся в стандартной библиотеке",
+            "  -f, --file <file>         файл со списком классов, по одному на строку; '-' - стандартный вход",
+            "  -s, --scan <path>         все открытые интерфейсы и абстрактные классы директории или jar архива",
+            "  -m, --module <name>       все открытые интерфейсы и абстрактные классы модуля JDK",
+            "      --format <format>     source или class",
+            "      --mode <mode>         stub, forwarding или counting",
+            "      --hooks               вызывать beforeCall/afterCall в режиме forwarding",
+            "      --backend <backend>   reflection или class-file",
+            "      --archive <file>      писать реализации в zip/jar архив",
+            "      --incremental         не генерировать заново реализации неизменившихся классов",
+            "      --writer-threads <n>  число потоков записи",
+            "      --jdk-index <file>    индекс типов JDK вместо найденного рядом с jar файлом; 'none' - без индекса",
+            "      --build-jdk-index <dir>",
+            "                            записать в директорию индекс перечисленных типов JDK и выйти",
+            "      --daemon [threads]    обслуживать запросы ImplementorDaemon из стандартного входа",
+            "  -h, --help                эта справка");
+
+    private String output = ".";
+    private String directory;
+    private final List<String> classNames = new ArrayList<>();
+    private final List<String> scans = new ArrayList<>();
+    private final List<String> modules = new ArrayList<>();
+    private OutputFormat format = OutputFormat.SOURCE;
+    private ImplementationMode mode = ImplementationMode.STUB;
+    private boolean hooks;
+    private MetadataBackend backend = MetadataBackend.REFLECTION;
+    private String archive;
+    private boolean incremental;
+    private int writerThreads;
+    private String jdkIndex;
+    private String jdkIndexOutput;
+    private int daemonThreads;
+
+    private ImplementorCli() {
+    }
+
+    public static void main(String[] args) {
+        ImplementorCli cli = new ImplementorCli();
+        try {
+            if (!cli.parse(args)) {
+                System.out.println(USAGE);
+                return;
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        System.exit(cli.run(System.out, System.err));
+    }
+
+    /**
+     * @return {@code false}, если запрошена справка
+     */
+    private boolean parse(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    return false;
+                case "-o":
+                case "--output":
+                    output = value(args, ++i, arg);
+                    break;
+                case "-d":
+                case "--directory":
+                    directory = value(args, ++i, arg);
+                    break;
+                case "-f":
+                case "--file":
+                    readClassNames(value(args, ++i, arg));
+                    break;
+                case "-s":
+                case "--scan":
+                    scans.add(value(args, ++i, arg));
+                    break;
+                case "-m":
+                case "--module":
+                    modules.add(value(args, ++i, arg));
+                    break;
+                case "--format":
+                    format = option(OutputFormat.class, value(args, ++i, arg));
+                    break;
+                case "--mode":
+                    mode = option(ImplementationMode.class, value(args, ++i, arg));
+                    break;
+                case "--hooks":
+                    hooks = true;
+                    break;
+                case "--backend":
+                    backend = option(MetadataBackend.class, value(args, ++i, arg));
+                    break;
+                case "--archive":
+                    archive = value(args, ++i, arg);
+                    break;
+                case "--incremental":
+                    incremental = true;
+                    break;
+                case "--writer-threads":
+                    writerThreads = number(value(args, ++i, arg));
+                    break;
+                case "--jdk-index":
+                    jdkIndex = value(args, ++i, arg);
+                    break;
+                case "--build-jdk-index":
+                    jdkIndexOutput = value(args, ++i, arg);
+                    break;
+                case "--daemon":
+                    daemonThreads = i + 1 < args.length && args[i + 1].matches("\\d+") ?
+                            threadCount(args[++i]) : Runtime.getRuntime().availableProcessors();
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Неизвестный параметр " + arg + ".");
+                    }
+                    classNames.add(arg);
+            }
+        }
+        if (daemonThreads == 0 && classNames.isEmpty() && scans.isEmpty() && modules.isEmpty()) {
+            throw new IllegalArgumentException("Не указано, какие классы реализовать.");
+        }
+        return true;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Параметру " + option + " требуется значение.");
+        }
+        return args[i];
+    }
+
+    private static int number(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ожидалось число: " + value + ".");
+        }
+    }
+
+    /**
+     * Число потоков для {@code --daemon} и {@link ImplementorDaemon}.
+     *
+     * @throws IllegalArgumentException если это не положительное число
+     */
+    static int threadCount(String value) {
+        int threads = number(value);
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным: " + value + ".");
+        }
+        return threads;
+    }
+
+    /**
+     * Принимает имена констант в любом регистре и с дефисом вместо подчеркивания, например {@code class-file}.
+     */
+    private static <E extends Enum<E>> E option(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестное значение " + value + ".");
+        }
+    }
+
+    /**
+     * Пустые строки и строки, начинающиеся с {@code #}, пропускаются.
+     */
+    private void readClassNames(String file) throws IOException {
+        BufferedReader reader = file.equals("-") ?
+                new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)) :
+                Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    classNames.add(line);
+                }
+            }
+        } finally {
+            if (!file.equals("-")) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * @return код возврата
+     */
+    private int run(PrintStream out, PrintStream err) {
+        if (jdkIndexOutput != null) {
+            return buildJdkIndex(out, err);
+        }
+        AtomicBoolean failed = new AtomicBoolean();
+        try (SimpleImplementor implementor = new SimpleImplementor(output)) {
+            if (jdkIndex != null) {
+                implementor.setJdkIndex(jdkIndex.equals("none") ? null : jdkIndex);
+            }
+            implementor.setOutputFormat(format).
+                    setImplementationMode(mode).
+                    setForwardingHooks(hooks).
+                    setMetadataBackend(backend).
+                    setIncremental(incremental).
+                    setOutputArchive(archive).
+                    setWriterThreads(writerThreads);
+
+            if (daemonThreads > 0) {
+                new ImplementorDaemon(implementor, daemonThreads).serve(System.in, out);
+                return 0;
+            }
+
+            if (!classNames.isEmpty()) {
+                List<ImplementorResult> results = directory == null ?
+                        implementor.implementAllFromStandardLibrary(classNames) :
+                        implementor.implementAllFromDirectory(directory, classNames);
+                results.forEach(result -> report(result, out, err, failed));
+            }
+            for (String path : scans) {
+                implementor.scanAndImplement(path, result -> report(result, out, err, failed));
+            }
+            for (String module : modules) {
+                implementor.scanAndImplementModule(module, result -> report(result, out, err, failed));
+            }
+        } catch (ImplementorException | IOException e) {
+            err.println(e.getMessage());
+            return 1;
+        }
+        return failed.get() ? 1 : 0;
+    }
+
+    /**
+     * Индексируются перечисленные классы и все открытые интерфейсы и абстрактные классы перечисленных модулей.
+     */
+    private int buildJdkIndex(PrintStream out, PrintStream err) {
+        // Модуль обходится параллельно.
+        List<String> types = Collections.synchronizedList(new ArrayList<>(classNames));
+        try {
+            for (String module : modules) {
+                try (ClassPathScanner scanner = ClassPathScanner.module(module)) {
+                    scanner.forEachClassFile(classFile -> {
+                        String className = scanner.className(classFile);
+                        try {
+                            if (scanner.isCandidate(classFile, className)) {
+                                types.add(className);
+                            }
+                        } catch (ImplementorException e) {
+                            err.println(className + ": " + e.getMessage());
+                        }
+                    });
+                }
+            }
+            out.println(JdkIndex.build(Paths.get(jdkIndexOutput), types));
+        } catch (ImplementorException | IOException e) {
+            err.println(e.getMessage());
+            return 1;
+        } catch (UncheckedIOException e) {
+            err.println(e.getCause().getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    private static void report(ImplementorResult result, PrintStream out, PrintStream err, AtomicBoolean failed) {
+        if (result.isSuccess()) {
+            out.println(result);
+        } else {
+            failed.set(true);
+            err.println(result);
+        }
+    }
+}
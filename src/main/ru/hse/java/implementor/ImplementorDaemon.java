@@ -0,0 +1,188 @@
+package ru.hse.java.implementor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Долгоживущий процесс с одним прогретым {@link SimpleImplementor}: загрузчики классов, разобранные
+ * class файлы и таблицы методов переживают запросы, а JVM стартует один раз.
+ *
+ * Протокол построчный, поля разделяются табуляцией, кодировка UTF-8:
+ * <pre>
+ *   запрос:  id  std  className
+ *            id  dir  directoryPath  className
+ *   ответ:   id  ok  implClassName
+ *            id  error  сообщение
+ * </pre>
+ * В сообщении об ошибке обратная косая черта, табуляция и перевод строки записываются как {@code \\},
+ * {@code \t} и {@code \n}, остальные управляющие символы - как <code>&#92;uXXXX</code>, так что ответ
+ * всегда занимает одну строку.
+ * Запросы выполняются параллельно на ограниченном пуле, поэтому ответы приходят в порядке готовности
+ * и сопоставляются с запросами по id. Когда очередь пула заполнена, запрос выполняется в читающем потоке,
+ * и чтение новых запросов приостанавливается. Конец входа завершает работу после ответа на все запросы,
+ * ошибка записи ответа - сразу, без выполнения оставшихся запросов.
+ */
+public final class ImplementorDaemon {
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final SimpleImplementor implementor;
+    private final int threads;
+
+    public ImplementorDaemon(SimpleImplementor implementor, int threads) {
+        this.implementor = implementor;
+        this.threads = threads;
+    }
+
+    /**
+     * Аргументы: директория для сгенерированных классов и, необязательно, число потоков.
+     */
+    public static void main(String[] args) throws IOException, ImplementorException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            if (args.length < 1 || args.length > 2) {
+                throw new IllegalArgumentException("Неверное число аргументов.");
+            }
+            if (args.length > 1) {
+                threads = ImplementorCli.threadCount(args[1]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Использование: ImplementorDaemon <outputDirectory> [threads]");
+            System.exit(2);
+        }
+        try (SimpleImplementor implementor = new SimpleImplementor(args[0])) {
+            new ImplementorDaemon(implementor, threads).serve(System.in, System.out);
+        }
+    }
+
+    /**
+     * Обслуживает запросы из `in`, пока он не закончится.
+     *
+     * @throws IOException если не удалось прочитать запрос или записать ответ
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader requests = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Responses responses = new Responses(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        ExecutorService executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            String line;
+            while (!responses.isFailed() && (line = requests.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String request = line;
+                executor.execute(() -> {
+                    // Отвечать уже некуда, поэтому запросы из очереди не выполняются.
+                    if (!responses.isFailed()) {
+                        responses.write(handle(request));
+                    }
+                });
+            }
+        } finally {
+            if (responses.isFailed()) {
+                executor.shutdownNow();
+            } else {
+                executor.shutdown();
+            }
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        responses.rethrowFailure();
+    }
+
+    private String handle(String request) {
+        String[] fields = request.split("\t", -1);
+        String id = fields[0];
+        try {
+            String implClassName;
+            if (fields.length == 3 && fields[1].equals("std")) {
+                implClassName = implementor.implementFromStandardLibrary(fields[2]);
+            } else if (fields.length == 4 && fields[1].equals("dir")) {
+                implClassName = implementor.implementFromDirectory(fields[2], fields[3]);
+            } else if (fields.length > 1 && !fields[1].equals("std") && !fields[1].equals("dir")) {
+                return error(id, "Неизвестная команда: " + fields[1] + ".");
+            } else {
+                return error(id, "Некорректный запрос.");
+            }
+            return id + "\tok\t" + implClassName;
+        } catch (ImplementorException e) {
+            return error(id, e.getMessage());
+        } catch (RuntimeException | LinkageError e) {
+            return error(id, e.toString());
+        }
+    }
+
+    private static String error(String id, String message) {
+        return id + "\terror\t" + escape(String.valueOf(message));
+    }
+
+    static String escape(String message) {
+        StringBuilder result = new StringBuilder(message.length());
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '\\') {
+                result.append("\\\\");
+            } else if (c == '\t') {
+                result.append("\\t");
+            } else if (c == '\n') {
+                result.append("\\n");
+            } else if (Character.isISOControl(c)) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Выход ответов. После первой ошибки записи ответы больше не пишутся, а ошибка возвращается из serve.
+     */
+    private static final class Responses {
+        private final Writer writer;
+        private volatile IOException failure;
+
+        Responses(Writer writer) {
+            this.writer = writer;
+        }
+
+        boolean isFailed() {
+            return failure != null;
+        }
+
+        synchronized void write(String response) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                writer.write(response);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        void rethrowFailure() throws IOException {
+            IOException e = failure;
+            if (e != null) {
+                throw e;
+            }
+        }
+    }
+}
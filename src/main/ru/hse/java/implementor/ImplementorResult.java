@@ -0,0 +1,49 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public final class ImplementorResult {
+    private final String className;
+    private final String implClassName;
+    private final ImplementorException error;
+
+    private ImplementorResult(String className, String implClassName, ImplementorException error) {
+        this.className = className;
+        this.implClassName = implClassName;
+        this.error = error;
+    }
+
+    @NotNull
+    public static ImplementorResult success(String className, String implClassName) {
+        return new ImplementorResult(className, implClassName, null);
+    }
+
+    @NotNull
+    public static ImplementorResult failure(String className, ImplementorException error) {
+        return new ImplementorResult(className, null, error);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    @Nullable
+    public String getImplClassName() {
+        return implClassName;
+    }
+
+    @Nullable
+    public ImplementorException getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? className + " -> " + implClassName : className + ": " + error.getMessage();
+    }
+}
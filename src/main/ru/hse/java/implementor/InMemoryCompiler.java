@@ -0,0 +1,221 @@
+package ru.hse.java.implementor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Компилирует сгенерированные исходники в памяти пачками, по одной {@link JavaCompiler.CompilationTask} на пачку.
+ * {@link StandardJavaFileManager} создается один раз и переиспользуется всеми пачками.
+ */
+final class InMemoryCompiler {
+    static final int BATCH_SIZE = 1000;
+
+    private static final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    private static final Object lock = new Object();
+    private static StandardJavaFileManager standardFileManager;
+
+    private InMemoryCompiler() {
+    }
+
+    /**
+     * Исходный код одной реализации или ошибка, из-за которой его не удалось получить.
+     */
+    static final class Unit {
+        final String className;
+        final String implClassName;
+        final String source;
+        final ImplementorException error;
+
+        Unit(String className, String implClassName, String source) {
+            this.className = className;
+            this.implClassName = implClassName;
+            this.source = source;
+            this.error = null;
+        }
+
+        Unit(String className, ImplementorException error) {
+            this.className = className;
+            this.implClassName = null;
+            this.source = null;
+            this.error = error;
+        }
+    }
+
+    static List<CompiledImplementation> compile(List<Unit> units, List<String> classPath) {
+        CompiledImplementation[] results = new CompiledImplementation[units.size()];
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < units.size(); i++) {
+            Unit unit = units.get(i);
+            if (unit.error != null) {
+                results[i] = CompiledImplementation.failure(unit.className, null, unit.error.getMessage());
+            } else if (compiler == null) {
+                results[i] = CompiledImplementation.failure(unit.className, unit.implClassName,
+                        "Компилятор java недоступен.");
+            } else {
+                batch.add(i);
+                if (batch.size() == BATCH_SIZE) {
+                    compileBatch(units, batch, classPath, results, true);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            compileBatch(units, batch, classPath, results, true);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Если пачка не скомпилировалась, реализации с ошибками помечаются как неудачные,
+     * а остальные компилируются повторно одной пачкой.
+     */
+    private static void compileBatch(List<Unit> units, List<Integer> batch, List<String> classPath,
+                                     CompiledImplementation[] results, boolean retry) {
+        Map<String, Integer> byImplClassName = new HashMap<>();
+        List<JavaFileObject> sources = new ArrayList<>(batch.size());
+        for (int index : batch) {
+            Unit unit = units.get(index);
+            byImplClassName.put(unit.implClassName, index);
+            sources.add(new SourceObject(unit.implClassName, unit.source));
+        }
+
+        List<String> options = new ArrayList<>(List.of("-proc:none", "-Xlint:none", "-nowarn"));
+        List<String> path = new ArrayList<>(classPath);
+        path.add(System.getProperty("java.class.path"));
+        options.add("-classpath");
+        options.add(String.join(File.pathSeparator, path));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> outputs = new HashMap<>();
+        boolean success;
+        synchronized (lock) {
+            MemoryFileManager fileManager = new MemoryFileManager(standardFileManager(), outputs);
+            success = compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+        }
+
+        if (success) {
+            for (int index : batch) {
+                Unit unit = units.get(index);
+                ByteArrayOutputStream bytes = outputs.get(unit.implClassName);
+                results[index] = bytes == null ?
+                        CompiledImplementation.failure(unit.className, unit.implClassName, "Класс не сгенерирован.") :
+                        CompiledImplementation.success(unit.className, unit.implClassName, bytes.toByteArray());
+            }
+            return;
+        }
+
+        Map<Integer, List<String>> errors = new HashMap<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR || !(diagnostic.getSource() instanceof SourceObject)) {
+                continue;
+            }
+            Integer index = byImplClassName.get(((SourceObject) diagnostic.getSource()).implClassName);
+            errors.computeIfAbsent(index, i -> new ArrayList<>()).add(diagnostic.toString());
+        }
+
+        List<Integer> rest = new ArrayList<>();
+        for (int index : batch) {
+            Unit unit = units.get(index);
+            List<String> unitErrors = errors.get(index);
+            if (unitErrors != null) {
+                results[index] = CompiledImplementation.failure(unit.className, unit.implClassName, unitErrors);
+            } else if (retry && !errors.isEmpty()) {
+                rest.add(index);
+            } else {
+                results[index] = CompiledImplementation.failure(unit.className, unit.implClassName,
+                        diagnostics.getDiagnostics().toString());
+            }
+        }
+        if (!rest.isEmpty()) {
+            compileBatch(units, rest, classPath, results, false);
+        }
+    }
+
+    private static StandardJavaFileManager standardFileManager() {
+        if (standardFileManager == null) {
+            standardFileManager = compiler.getStandardFileManager(null, null, null);
+        }
+        return standardFileManager;
+    }
+
+    private static final class SourceObject extends SimpleJavaFileObject {
+        private final String implClassName;
+        private final String source;
+
+        SourceObject(String implClassName, String source) {
+            super(URI.create("string:///" + implClassName.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.implClassName = implClassName;
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static final class ClassObject extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes;
+
+        ClassObject(String className, ByteArrayOutputStream bytes) {
+            super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> outputs;
+
+        MemoryFileManager(StandardJavaFileManager fileManager, Map<String, ByteArrayOutputStream> outputs) {
+            super(fileManager);
+            this.outputs = outputs;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+            if (kind != JavaFileObject.Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            outputs.put(className, bytes);
+            return new ClassObject(className, bytes);
+        }
+
+        /**
+         * Общий {@link StandardJavaFileManager} не закрывается вместе с задачей.
+         */
+        @Override
+        public void close() {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
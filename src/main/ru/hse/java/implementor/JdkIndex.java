@@ -0,0 +1,600 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Заранее построенный индекс интерфейсов и абстрактных классов JDK: для каждого типа хранятся разрешенная
+ * таблица видимых методов, выбранный конструктор суперкласса с исключениями и отпечаток для манифеста.
+ * Тип из индекса реализуется без reflection и без чтения class файлов.
+ *
+ * Файл отображается в память, а записи читаются по требованию. При открытии проверяются только границы секций
+ * и контрольная сумма, поэтому поврежденный или обрезанный файл не открывается, а не дает неверные реализации.
+ * Индекс верен только для той версии JDK, на которой он построен: версия входит в имя файла и в заголовок,
+ * и индекс другой версии не открывается.
+ *
+ * Формат (big-endian): заголовок с версией JDK, позициями секций и CRC32 всего, что идет после заголовка,
+ * затем секции строк, ссылок на типы, методов и классов. Строки, типы и методы записаны один раз
+ * и упоминаются по номеру; классы отсортированы по имени для двоичного поиска.
+ */
+final class JdkIndex {
+    /**
+     * Путь до файла индекса или директории с ним; по умолчанию индекс ищется рядом с jar файлом имплементора.
+     */
+    static final String LOCATION_PROPERTY = "ru.hse.java.implementor.jdkIndex";
+
+    private static final int MAGIC = 0x4A494458;
+    private static final int FORMAT_VERSION = 3;
+    private static final int NONE = -1;
+
+    private static final int FLAG_BRIDGE = 1;
+    private static final int FLAG_DECLARED_IN_INTERFACE = 2;
+
+    private final ByteBuffer buffer;
+    private final int strings;
+    private final int types;
+    private final int methods;
+    private final int classes;
+    private final int classCount;
+    private final AtomicReferenceArray<String> stringCache;
+    private final AtomicReferenceArray<MethodMetadata> methodCache;
+    private final ConcurrentMap<String, IndexedClassMetadata> classCache = new ConcurrentHashMap<>();
+
+    private JdkIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Файл не является индексом JDK.");
+        }
+        int position = 8;
+        int versionLength = buffer.getInt(position);
+        position += 4;
+        if (!string(position, versionLength).equals(jdkVersion())) {
+            throw new IOException("Индекс построен для другой версии JDK.");
+        }
+        position += versionLength;
+        strings = buffer.getInt(position);
+        types = buffer.getInt(position + 4);
+        methods = buffer.getInt(position + 8);
+        classes = buffer.getInt(position + 12);
+        int checksum = buffer.getInt(position + 16);
+        position += 20;
+
+        // Секции идут подряд, и таблица в начале каждой из них помещается до начала следующей.
+        if (strings != position ||
+                !fits(strings, 4, types) || !fits(types, 8, methods) ||
+                !fits(methods, 4, classes) || !fits(classes, 8, buffer.limit())) {
+            throw new IOException("Индекс JDK поврежден: неверные границы секций.");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(strings));
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Индекс JDK поврежден: не совпадает контрольная сумма.");
+        }
+        classCount = buffer.getInt(classes);
+        stringCache = new AtomicReferenceArray<>(buffer.getInt(strings));
+        methodCache = new AtomicReferenceArray<>(buffer.getInt(methods));
+    }
+
+    /**
+     * @return помещается ли таблица секции, начинающейся в `start`, с размером записи `entrySize`
+     * до позиции `end`
+     */
+    private boolean fits(int start, int entrySize, int end) {
+        if (start < 0 || end > buffer.limit() || (long) start + 4 > end) {
+            return false;
+        }
+        int count = buffer.getInt(start);
+        return count >= 0 && start + 4 + (long) count * entrySize <= end;
+    }
+
+    /**
+     * @return индекс для текущей JDK из {@value #LOCATION_PROPERTY} или из директории jar файла имплементора;
+     * {@code null}, если его там нет или он не подходит
+     */
+    @Nullable
+    static JdkIndex forCurrentJdk() {
+        return Default.instance;
+    }
+
+    private static final class Default {
+        static final JdkIndex instance = locate();
+
+        @Nullable
+        private static JdkIndex locate() {
+            Path location;
+            String property = System.getProperty(LOCATION_PROPERTY);
+            if (property != null) {
+                location = Paths.get(property);
+            } else {
+                location = codeLocation();
+                if (location == null) {
+                    return null;
+                }
+            }
+            try {
+                return open(Files.isDirectory(location) ? location.resolve(fileName()) : location);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return директория, из которой загружен имплементор: сама директория классов или директория jar файла
+         */
+        @Nullable
+        private static Path codeLocation() {
+            CodeSource source = JdkIndex.class.getProtectionDomain().getCodeSource();
+            if (source == null || source.getLocation() == null) {
+                return null;
+            }
+            try {
+                Path path = Paths.get(source.getLocation().toURI());
+                return Files.isDirectory(path) ? path : path.getParent();
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @throws IOException если файл не найден, поврежден или построен для другой версии JDK
+     */
+    static JdkIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return new JdkIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (RuntimeException e) {
+            throw new IOException("Индекс JDK поврежден.", e);
+        }
+    }
+
+    /**
+     * Имя файла индекса для текущей JDK, например {@code jdk-index-17.0.8+7.bin}.
+     */
+    static String fileName() {
+        return "jdk-index-" + jdkVersion() + ".bin";
+    }
+
+    private static String jdkVersion() {
+        return Runtime.version().toString();
+    }
+
+    /**
+     * @param className бинарное имя класса, например {@code java.util.Map$Entry}
+     * @return {@code null}, если типа нет в индексе
+     */
+    @Nullable
+    ClassMetadata find(String className) {
+        IndexedClassMetadata metadata = classCache.get(className);
+        if (metadata != null) {
+            return metadata;
+        }
+        int low = 0;
+        int high = classCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = classes + 4 + middle * 8;
+            int comparison = string(buffer.getInt(entry)).compareTo(className);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                metadata = readClass(className, buffer.getInt(entry + 4));
+                IndexedClassMetadata previous = classCache.putIfAbsent(className, metadata);
+                return previous == null ? metadata : previous;
+            }
+        }
+        return null;
+    }
+
+    private IndexedClassMetadata readClass(String name, int position) {
+        String canonicalName = string(buffer.getInt(position));
+        String simpleName = string(buffer.getInt(position + 4));
+        String packageName = string(buffer.getInt(position + 8));
+        int modifiers = buffer.getInt(position + 12);
+        int fingerprint = buffer.getInt(position + 16);
+        int constructor = buffer.getInt(position + 20);
+        int memberCount = buffer.getInt(position + 24);
+        position += 28;
+
+        Map<String, MethodMetadata> members = new LinkedHashMap<>();
+        for (int i = 0; i < memberCount; i++) {
+            MethodMetadata m = method(buffer.getInt(position + i * 4));
+            members.put(m.getSignature(), m);
+        }
+        return new IndexedClassMetadata(name, canonicalName, simpleName, packageName, modifiers,
+                fingerprint == NONE ? null : string(fingerprint),
+                constructor == NONE ? List.of() : List.of(method(constructor)),
+                Collections.unmodifiableMap(members));
+    }
+
+    /**
+     * Один и тот же метод приходит в таблицы всех подтипов одним экземпляром, как и при reflection,
+     * чтобы напечатанный код метода переиспользовался.
+     */
+    private MethodMetadata method(int index) {
+        MethodMetadata result = methodCache.get(index);
+        if (result != null) {
+            return result;
+        }
+        int position = methods + buffer.getInt(methods + 4 + index * 4);
+        String name = string(buffer.getInt(position));
+        int modifiers = buffer.getInt(position + 4);
+        int flags = buffer.getInt(position + 8);
+        String declaringClass = string(buffer.getInt(position + 12));
+        TypeRef returnType = type(buffer.getInt(position + 16));
+        position += 20;
+        List<TypeRef> parameterTypes = types(position);
+        position += 4 + parameterTypes.size() * 4;
+        List<TypeRef> exceptionTypes = types(position);
+
+        result = new MethodMetadata(name, modifiers, (flags & FLAG_BRIDGE) != 0, parameterTypes, returnType,
+                exceptionTypes, (flags & FLAG_DECLARED_IN_INTERFACE) != 0, declaringClass);
+        return methodCache.compareAndSet(index, null, result) ? result : methodCache.get(index);
+    }
+
+    private List<TypeRef> types(int position) {
+        int count = buffer.getInt(position);
+        List<TypeRef> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(type(buffer.getInt(position + 4 + i * 4)));
+        }
+        return result;
+    }
+
+    private TypeRef type(int index) {
+        int position = types + 4 + index * 8;
+        return TypeRef.of(string(buffer.getInt(position)), string(buffer.getInt(position + 4)));
+    }
+
+    private String string(int index) {
+        String result = stringCache.get(index);
+        if (result == null) {
+            int position = strings + buffer.getInt(strings + 4 + index * 4);
+            result = string(position + 4, buffer.getInt(position));
+            stringCache.lazySet(index, result);
+        }
+        return result;
+    }
+
+    private String string(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Загружает перечисленные классы платформенным загрузчиком, не инициализируя их, и записывает индекс
+     * по тем из них, что являются интерфейсами или абстрактными классами JDK. Остальные имена пропускаются:
+     * в индекс не должны попадать типы, которые не зависят от версии JDK.
+     *
+     * @return путь до записанного файла
+     */
+    static Path build(Path directory, Collection<String> classNames) throws IOException {
+        List<ClassMetadata> types = new ArrayList<>();
+        for (String className : classNames) {
+            Class<?> type;
+            try {
+                type = Class.forName(className, false, ClassLoader.getPlatformClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                continue;
+            }
+            ClassMetadata metadata = ReflectionClassMetadata.of(type);
+            if (metadata.isInterface() || Modifier.isAbstract(metadata.getModifiers())) {
+                types.add(metadata);
+            }
+        }
+        return write(directory, types);
+    }
+
+    /**
+     * Строит индекс по загруженным в JVM типам и атомарно записывает его в `directory` под {@link #fileName()}.
+     *
+     * @param types интерфейсы и абстрактные классы JDK; таблицы методов разрешаются при записи
+     * @return путь до записанного файла
+     */
+    static Path write(Path directory, Collection<? extends ClassMetadata> types) throws IOException {
+        Map<String, ClassMetadata> sorted = new TreeMap<>();
+        for (ClassMetadata type : types) {
+            sorted.put(type.getName(), type);
+        }
+        Writer writer = new Writer();
+        for (ClassMetadata type : sorted.values()) {
+            writer.add(type);
+        }
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(fileName());
+        // Не createTempFile: у временного файла права только для владельца, а индекс поставляется в дистрибутиве.
+        Path tmp = directory.resolve(file.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                writer.writeTo(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return file;
+    }
+
+    /**
+     * Собирает таблицы строк, типов и методов, присваивая номера в порядке первого упоминания.
+     */
+    private static final class Writer {
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<String> stringList = new ArrayList<>();
+        private final Map<String, Integer> typeIndices = new HashMap<>();
+        private final List<int[]> typeList = new ArrayList<>();
+        private final Map<MethodMetadata, Integer> methodIndices = new IdentityHashMap<>();
+        private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        private final DataOutputStream methodOut = new DataOutputStream(methodBytes);
+        private final List<Integer> methodOffsets = new ArrayList<>();
+        private final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        private final DataOutputStream classOut = new DataOutputStream(classBytes);
+        private final List<int[]> classEntries = new ArrayList<>();
+
+        void add(ClassMetadata type) throws IOException {
+            Collection<MethodMetadata> members = type.members().values();
+            int[] memberIndices = new int[members.size()];
+            int i = 0;
+            for (MethodMetadata m : members) {
+                memberIndices[i++] = method(m);
+            }
+            MethodMetadata constructor = type.superConstructor();
+            String fingerprint = type.fingerprint();
+
+            classEntries.add(new int[]{string(type.getName()), classOut.size()});
+            classOut.writeInt(string(type.getCanonicalName()));
+            classOut.writeInt(string(type.getSimpleName()));
+            classOut.writeInt(string(type.getPackageName()));
+            classOut.writeInt(type.getModifiers());
+            classOut.writeInt(fingerprint == null ? NONE : string(fingerprint));
+            classOut.writeInt(constructor == null ? NONE : method(constructor));
+            classOut.writeInt(memberIndices.length);
+            for (int index : memberIndices) {
+                classOut.writeInt(index);
+            }
+        }
+
+        private int method(MethodMetadata m) throws IOException {
+            Integer index = methodIndices.get(m);
+            if (index != null) {
+                return index;
+            }
+            int name = string(m.getName());
+            int declaringClass = string(m.getDeclaringClass());
+            int returnType = type(m.getReturnType());
+            int[] parameterTypes = types(m.getParameterTypes());
+            int[] exceptionTypes = types(m.getExceptionTypes());
+
+            index = methodOffsets.size();
+            methodIndices.put(m, index);
+            methodOffsets.add(methodOut.size());
+            methodOut.writeInt(name);
+            methodOut.writeInt(m.getModifiers());
+            methodOut.writeInt((m.isBridge() ? FLAG_BRIDGE : 0) |
+                    (m.isDeclaredInInterface() ? FLAG_DECLARED_IN_INTERFACE : 0));
+            methodOut.writeInt(declaringClass);
+            methodOut.writeInt(returnType);
+            writeInts(methodOut, parameterTypes);
+            writeInts(methodOut, exceptionTypes);
+            return index;
+        }
+
+        private int[] types(List<TypeRef> types) {
+            int[] result = new int[types.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = type(types.get(i));
+            }
+            return result;
+        }
+
+        private int type(TypeRef type) {
+            Integer index = typeIndices.get(type.getDescriptor() + ' ' + type.getCanonicalName());
+            if (index == null) {
+                index = typeList.size();
+                typeList.add(new int[]{string(type.getDescriptor()), string(type.getCanonicalName())});
+                typeIndices.put(type.getDescriptor() + ' ' + type.getCanonicalName(), index);
+            }
+            return index;
+        }
+
+        private int string(String s) {
+            return stringIndices.computeIfAbsent(s, key -> {
+                stringList.add(key);
+                return stringList.size() - 1;
+            });
+        }
+
+        void writeTo(OutputStream stream) throws IOException {
+            byte[] version = jdkVersion().getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+            DataOutputStream stringOut = new DataOutputStream(stringBytes);
+            int[] stringOffsets = new int[stringList.size()];
+            int stringTableSize = 4 + stringOffsets.length * 4;
+            for (int i = 0; i < stringOffsets.length; i++) {
+                byte[] bytes = stringList.get(i).getBytes(StandardCharsets.UTF_8);
+                stringOffsets[i] = stringTableSize + stringOut.size();
+                stringOut.writeInt(bytes.length);
+                stringOut.write(bytes);
+            }
+
+            int headerSize = 8 + 4 + version.length + 20;
+            int stringsPosition = headerSize;
+            int typesPosition = stringsPosition + stringTableSize + stringBytes.size();
+            int methodsPosition = typesPosition + 4 + typeList.size() * 8;
+            int methodTableSize = 4 + methodOffsets.size() * 4;
+            int classesPosition = methodsPosition + methodTableSize + methodBytes.size();
+            int classTableSize = 4 + classEntries.size() * 8;
+
+            // Тело собирается в памяти, чтобы записать его контрольную сумму в заголовок.
+            ByteArrayOutputStream body = new ByteArrayOutputStream(classesPosition - stringsPosition +
+                    classTableSize + classBytes.size());
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(body, crc));
+            writeInts(out, stringOffsets);
+            stringBytes.writeTo(out);
+
+            out.writeInt(typeList.size());
+            for (int[] type : typeList) {
+                out.writeInt(type[0]);
+                out.writeInt(type[1]);
+            }
+
+            out.writeInt(methodOffsets.size());
+            for (int offset : methodOffsets) {
+                out.writeInt(methodTableSize + offset);
+            }
+            methodBytes.writeTo(out);
+
+            out.writeInt(classEntries.size());
+            for (int[] entry : classEntries) {
+                out.writeInt(entry[0]);
+                out.writeInt(classesPosition + classTableSize + entry[1]);
+            }
+            classBytes.writeTo(out);
+            out.flush();
+
+            DataOutputStream header = new DataOutputStream(new BufferedOutputStream(stream));
+            header.writeInt(MAGIC);
+            header.writeInt(FORMAT_VERSION);
+            header.writeInt(version.length);
+            header.write(version);
+            header.writeInt(stringsPosition);
+            header.writeInt(typesPosition);
+            header.writeInt(methodsPosition);
+            header.writeInt(classesPosition);
+            header.writeInt((int) crc.getValue());
+            body.writeTo(header);
+            header.flush();
+        }
+
+        private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+            out.writeInt(values.length);
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Тип из индекса. Таблица видимых методов хранится уже разрешенной, поэтому супертипы и объявленные
+     * методы не нужны, а из конструкторов хранится только тот, что вызывает реализация.
+     */
+    private static final class IndexedClassMetadata extends ClassMetadata {
+        private final String name;
+        private final String canonicalName;
+        private final String simpleName;
+        private final String packageName;
+        private final int modifiers;
+        private final String fingerprint;
+        private final List<MethodMetadata> constructors;
+        private final Map<String, MethodMetadata> members;
+
+        IndexedClassMetadata(String name, String canonicalName, String simpleName, String packageName, int modifiers,
+                             @Nullable String fingerprint, List<MethodMetadata> constructors,
+                             Map<String, MethodMetadata> members) {
+            this.name = name;
+            this.canonicalName = canonicalName;
+            this.simpleName = simpleName;
+            this.packageName = packageName;
+            this.modifiers = modifiers;
+            this.fingerprint = fingerprint;
+            this.constructors = constructors;
+            this.members = members;
+        }
+
+        @Override
+        String getName() {
+            return name;
+        }
+
+        @Override
+        String getCanonicalName() {
+            return canonicalName;
+        }
+
+        @Override
+        String getSimpleName() {
+            return simpleName;
+        }
+
+        @Override
+        String getPackageName() {
+            return packageName;
+        }
+
+        @Override
+        int getModifiers() {
+            return modifiers;
+        }
+
+        @Override
+        ClassMetadata getSuperclass() {
+            return null;
+        }
+
+        @Override
+        List<? extends ClassMetadata> getInterfaces() {
+            return List.of();
+        }
+
+        @Override
+        List<MethodMetadata> getDeclaredMethods() {
+            return List.of();
+        }
+
+        @Override
+        List<MethodMetadata> getDeclaredConstructors() {
+            return constructors;
+        }
+
+        @Override
+        byte[] classFileDigest() {
+            return null;
+        }
+
+        @Override
+        Map<String, MethodMetadata> resolveMembers() {
+            return members;
+        }
+
+        @Override
+        String fingerprint() {
+            return fingerprint;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Читает class файлы стандартной библиотеки прямо из образа JDK через файловую систему {@code jrt:/},
+ * не загружая классы в JVM. Модуль, в котором лежит класс, находится по индексу пакет -> модуль,
+ * который строится один раз по директории {@code /packages} образа.
+ */
+final class JrtImage {
+    private static final JrtImage instance = new JrtImage(FileSystems.getFileSystem(URI.create("jrt:/")));
+
+    private final FileSystem jrt;
+    private volatile Map<String, String> modulesByPackage;
+
+    private JrtImage(FileSystem jrt) {
+        this.jrt = jrt;
+    }
+
+    static JrtImage get() {
+        return instance;
+    }
+
+    /**
+     * @param className бинарное имя класса, например {@code java.util.Map$Entry}
+     * @return байты class файла или {@code null}, если в образе такого класса нет
+     */
+    @Nullable
+    byte[] readClassFile(String className) throws IOException {
+        int lastDot = className.lastIndexOf('.');
+        String module = modulesByPackage().get(lastDot < 0 ? "" : className.substring(0, lastDot));
+        if (module == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(module(module).resolve(className.replace('.', '/') + ".class"));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return корень модуля, в котором class файлы лежат по своим пакетам
+     */
+    Path module(String moduleName) {
+        return jrt.getPath("/modules", moduleName);
+    }
+
+    private Map<String, String> modulesByPackage() throws IOException {
+        Map<String, String> result = modulesByPackage;
+        if (result == null) {
+            synchronized (this) {
+                result = modulesByPackage;
+                if (result == null) {
+                    result = readPackageIndex();
+                    modulesByPackage = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * В {@code /packages/<пакет>/} образа лежат ссылки на модули, содержащие этот пакет.
+     */
+    private Map<String, String> readPackageIndex() throws IOException {
+        Map<String, String> result = new HashMap<>();
+        try (Stream<Path> packages = Files.list(jrt.getPath("/packages"))) {
+            for (Iterator<Path> i = packages.iterator(); i.hasNext(); ) {
+                Path pkg = i.next();
+                try (Stream<Path> modules = Files.list(pkg)) {
+                    modules.findFirst().ifPresent(module ->
+                            result.put(pkg.getFileName().toString(), module.getFileName().toString()));
+                }
+            }
+        }
+        return result;
+    }
+}
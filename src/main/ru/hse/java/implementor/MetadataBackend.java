@@ -0,0 +1,16 @@
+package ru.hse.java.implementor;
+
+/**
+ * Откуда {@link SimpleImplementor} берет описание входных классов.
+ */
+public enum MetadataBackend {
+    /**
+     * Класс загружается в JVM и описывается через reflection.
+     */
+    REFLECTION,
+
+    /**
+     * Описание читается напрямую из байтов class файла: класс не загружается и не инициализируется.
+     */
+    CLASS_FILE
+}
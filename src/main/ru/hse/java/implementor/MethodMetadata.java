@@ -0,0 +1,143 @@
+package ru.hse.java.implementor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Описание метода или конструктора, не зависящее от того, откуда оно получено:
+ * из reflection или из class файла.
+ */
+final class MethodMetadata {
+    static final String CONSTRUCTOR_NAME = "<init>";
+
+    private final String name;
+    private final int modifiers;
+    private final boolean bridge;
+    private final List<TypeRef> parameterTypes;
+    private final TypeRef returnType;
+    private final List<TypeRef> exceptionTypes;
+    private final boolean declaredInInterface;
+    private final String declaringClass;
+    private final String declaringPackage;
+    private final String signature;
+    private volatile String renderedSource;
+
+    MethodMetadata(String name, int modifiers, boolean bridge, List<TypeRef> parameterTypes, TypeRef returnType,
+                   List<TypeRef> exceptionTypes, boolean declaredInInterface, String declaringClass) {
+        this.name = name;
+        this.modifiers = modifiers & Modifier.methodModifiers();
+        this.bridge = bridge;
+        this.parameterTypes = List.copyOf(parameterTypes);
+        this.returnType = returnType;
+        this.exceptionTypes = List.copyOf(exceptionTypes);
+        this.declaredInInterface = declaredInInterface;
+        this.declaringClass = declaringClass;
+        int dot = declaringClass.lastIndexOf('.');
+        this.declaringPackage = dot < 0 ? "" : declaringClass.substring(0, dot);
+
+        StringBuilder sb = new StringBuilder(name).append('(');
+        for (TypeRef param : parameterTypes) {
+            sb.append(param.getDescriptor());
+        }
+        this.signature = sb.append(')').toString();
+    }
+
+    static MethodMetadata of(Method m) {
+        return new MethodMetadata(m.getName(), m.getModifiers(), m.isBridge(), typeRefs(m.getParameterTypes()),
+                TypeRef.of(m.getReturnType()), typeRefs(m.getExceptionTypes()),
+                m.getDeclaringClass().isInterface(), m.getDeclaringClass().getName());
+    }
+
+    static MethodMetadata of(Constructor<?> c) {
+        return new MethodMetadata(CONSTRUCTOR_NAME, c.getModifiers(), false, typeRefs(c.getParameterTypes()),
+                TypeRef.of(void.class), typeRefs(c.getExceptionTypes()), false, c.getDeclaringClass().getName());
+    }
+
+    private static List<TypeRef> typeRefs(Class<?>[] types) {
+        List<TypeRef> refs = new ArrayList<>(types.length);
+        for (Class<?> type : types) {
+            refs.add(TypeRef.of(type));
+        }
+        return refs;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getModifiers() {
+        return modifiers;
+    }
+
+    boolean isBridge() {
+        return bridge;
+    }
+
+    List<TypeRef> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    TypeRef getReturnType() {
+        return returnType;
+    }
+
+    List<TypeRef> getExceptionTypes() {
+        return exceptionTypes;
+    }
+
+    boolean isDeclaredInInterface() {
+        return declaredInInterface;
+    }
+
+    /**
+     * @return бинарное имя класса, в котором объявлен метод, например {@code java.util.Map$Entry}
+     */
+    String getDeclaringClass() {
+        return declaringClass;
+    }
+
+    /**
+     * @return пакет класса, в котором объявлен метод, например {@code java.util}; от него зависит,
+     * откуда доступен protected метод
+     */
+    String getDeclaringPackage() {
+        return declaringPackage;
+    }
+
+    /**
+     * Стертая сигнатура метода: имя и дескрипторы параметров, например {@code f([Ljava/lang/String;I)}.
+     * Методы с одинаковой сигнатурой переопределяют друг друга.
+     */
+    String getSignature() {
+        return signature;
+    }
+
+    /**
+     * Дескриптор метода, например {@code (I[Ljava/lang/String;)V}.
+     */
+    String getDescriptor() {
+        return signature.substring(name.length()) + returnType.getDescriptor();
+    }
+
+    /**
+     * Исходный код реализации метода, однажды напечатанный {@link SourceRenderer}. Один и тот же экземпляр
+     * приходит в таблицы методов всех подтипов, поэтому унаследованный метод печатается один раз.
+     *
+     * @return {@code null}, если метод еще не печатался
+     */
+    String getRenderedSource() {
+        return renderedSource;
+    }
+
+    void setRenderedSource(String renderedSource) {
+        this.renderedSource = renderedSource;
+    }
+
+    @Override
+    public String toString() {
+        return signature;
+    }
+}
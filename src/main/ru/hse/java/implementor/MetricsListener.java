@@ -0,0 +1,11 @@
+package ru.hse.java.implementor;
+
+/**
+ * Получает замеры каждого вызова implement, в том числе неудачного.
+ * Вызывается из потока, выполнявшего генерацию, а при конвейерной записи - из потока записи,
+ * поэтому при пакетной генерации должен быть потокобезопасным.
+ */
+@FunctionalInterface
+public interface MetricsListener {
+    void onImplemented(ImplementMetrics metrics);
+}
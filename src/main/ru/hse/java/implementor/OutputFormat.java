@@ -0,0 +1,16 @@
+package ru.hse.java.implementor;
+
+/**
+ * В каком виде {@link SimpleImplementor} записывает сгенерированную реализацию.
+ */
+public enum OutputFormat {
+    /**
+     * Исходный код, файл `*Impl.java`.
+     */
+    SOURCE,
+
+    /**
+     * Готовый к загрузке class файл `*Impl.class`, компиляция javac не требуется.
+     */
+    CLASS
+}
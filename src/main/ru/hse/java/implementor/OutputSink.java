@@ -0,0 +1,63 @@
+package ru.hse.java.implementor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Приемник сгенерированного исходного кода. Получает весь файл целиком за один вызов {@link #write}.
+ */
+@FunctionalInterface
+public interface OutputSink {
+
+    /**
+     * @param content исходный код реализации; может ссылаться на переиспользуемый буфер,
+     *                поэтому его нельзя сохранять после возврата из метода
+     */
+    void write(CharSequence content) throws IOException;
+
+    static OutputSink of(Appendable appendable) {
+        return appendable::append;
+    }
+
+    static OutputSink of(OutputStream out) {
+        return of(out, Charset.defaultCharset());
+    }
+
+    static OutputSink of(OutputStream out, Charset charset) {
+        return content -> {
+            ByteBuffer bytes = SourceRenderer.encode(content, charset);
+            out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        };
+    }
+
+    /**
+     * Подходит и для {@link java.nio.channels.FileChannel}.
+     */
+    static OutputSink of(WritableByteChannel channel) {
+        return of(channel, Charset.defaultCharset());
+    }
+
+    static OutputSink of(WritableByteChannel channel, Charset charset) {
+        return content -> {
+            ByteBuffer bytes = SourceRenderer.encode(content, charset);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        };
+    }
+
+    /**
+     * @param target буфер, в который дописывается код; при нехватке места бросается
+     *               {@link java.nio.BufferOverflowException}
+     */
+    static OutputSink of(ByteBuffer target) {
+        return of(target, Charset.defaultCharset());
+    }
+
+    static OutputSink of(ByteBuffer target, Charset charset) {
+        return content -> target.put(SourceRenderer.encode(content, charset));
+    }
+}
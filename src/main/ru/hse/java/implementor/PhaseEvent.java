@@ -0,0 +1,23 @@
+package ru.hse.java.implementor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Одна фаза вызова implement в JDK Flight Recorder.
+ */
+@Name("ru.hse.java.implementor.Phase")
+@Label("Implementor Phase")
+@Category("Implementor")
+@Description("Загрузка, разрешение методов, рендеринг или запись реализации одного класса")
+@StackTrace(false)
+final class PhaseEvent extends jdk.jfr.Event {
+    @Label("Class")
+    String className;
+
+    @Label("Phase")
+    String phase;
+}
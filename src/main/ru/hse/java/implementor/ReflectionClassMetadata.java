@@ -0,0 +1,108 @@
+package ru.hse.java.implementor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ClassMetadata} поверх загруженного {@link Class}.
+ * Экземпляры кэшируются в {@link ClassValue}, поэтому иерархия каждого типа разрешается один раз за процесс.
+ */
+final class ReflectionClassMetadata extends ClassMetadata {
+    private static final ClassValue<ReflectionClassMetadata> cache = new ClassValue<>() {
+        @Override
+        protected ReflectionClassMetadata computeValue(Class<?> clazz) {
+            return new ReflectionClassMetadata(clazz);
+        }
+    };
+
+    private final Class<?> clazz;
+
+    private ReflectionClassMetadata(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    static ReflectionClassMetadata of(Class<?> clazz) {
+        return cache.get(clazz);
+    }
+
+    Class<?> getType() {
+        return clazz;
+    }
+
+    @Override
+    String getName() {
+        return clazz.getName();
+    }
+
+    @Override
+    String getCanonicalName() {
+        return clazz.getCanonicalName();
+    }
+
+    @Override
+    String getSimpleName() {
+        return clazz.getSimpleName();
+    }
+
+    @Override
+    String getPackageName() {
+        return clazz.getPackageName();
+    }
+
+    @Override
+    int getModifiers() {
+        return clazz.getModifiers();
+    }
+
+    @Override
+    byte[] classFileDigest() {
+        String resource = clazz.getName().replace('.', '/') + ".class";
+        ClassLoader cl = clazz.getClassLoader();
+        try (InputStream in = cl == null ?
+                ClassLoader.getSystemResourceAsStream(resource) : cl.getResourceAsStream(resource)) {
+            return in == null ? null : sha256().digest(in.readAllBytes());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    ClassMetadata getSuperclass() {
+        Class<?> superclass = clazz.getSuperclass();
+        return superclass == null ? null : of(superclass);
+    }
+
+    @Override
+    List<ReflectionClassMetadata> getInterfaces() {
+        Class<?>[] interfaces = clazz.getInterfaces();
+        List<ReflectionClassMetadata> result = new ArrayList<>(interfaces.length);
+        for (Class<?> i : interfaces) {
+            result.add(of(i));
+        }
+        return result;
+    }
+
+    @Override
+    List<MethodMetadata> getDeclaredMethods() {
+        Method[] methods = clazz.getDeclaredMethods();
+        List<MethodMetadata> result = new ArrayList<>(methods.length);
+        for (Method m : methods) {
+            result.add(MethodMetadata.of(m));
+        }
+        return result;
+    }
+
+    @Override
+    List<MethodMetadata> getDeclaredConstructors() {
+        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+        List<MethodMetadata> result = new ArrayList<>(constructors.length);
+        for (Constructor<?> c : constructors) {
+            result.add(MethodMetadata.of(c));
+        }
+        return result;
+    }
+}
@@ -1,256 +1,790 @@
 package ru.hse.java.implementor;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Modifier;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Один экземпляр можно использовать из нескольких потоков одновременно. Настройки, измененные сеттером,
+ * видны вызовам, начатым после его возврата; вызов, идущий параллельно с сеттером, может не увидеть их.
+ * Записи в один и тот же файл упорядочиваются, а файл заменяется атомарно, поэтому читатель видит
+ * либо старое, либо новое содержимое целиком.
+ */
+public class SimpleImplementor implements Implementor, AutoCloseable {
+    private static final int WRITE_QUEUE_CAPACITY = 256;
+    private static final int WRITE_LOCK_STRIPES = 64;
+
+    private final Path outputDirectory;
+    private final ForkJoinPool pool;
+    private final Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+    private final Object[] writeLocks = new Object[WRITE_LOCK_STRIPES];
+    private final ClassLoaderCache loaders = new ClassLoaderCache(ClassLoaderCache.DEFAULT_CAPACITY);
+    private final Map<Path, ClassFileRepository> repositories =
+            new LinkedHashMap<>(ClassLoaderCache.DEFAULT_CAPACITY, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, ClassFileRepository> eldest) {
+                    return size() > ClassLoaderCache.DEFAULT_CAPACITY;
+                }
+            };
+    private volatile MetadataBackend backend = MetadataBackend.REFLECTION;
+    private volatile OutputFormat outputFormat = OutputFormat.SOURCE;
+    private volatile ImplementationMode mode = ImplementationMode.STUB;
+    private volatile boolean forwardingHooks;
+    private volatile boolean incremental;
+    private volatile GenerationManifest manifest;
+    private volatile MetricsListener metricsListener;
+    private volatile ArchiveOutput archive;
+    private volatile WritePipeline pipeline;
+    private volatile JdkIndex jdkIndex = JdkIndex.forCurrentJdk();
 
+    public SimpleImplementor(String outputDir) {
+        this(outputDir, ForkJoinPool.commonPool());
+    }
 
-public class SimpleImplementor implements Implementor {
-    String outputDirectory;
-    static final String tab = "    ";
+    public SimpleImplementor(String outputDir, ForkJoinPool pool) {
+        outputDirectory = Paths.get(outputDir);
+        this.pool = pool;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+    }
 
-    public SimpleImplementor(String outputDir) {
-        outputDirectory = outputDir;
+    /**
+     * Выбирает, откуда берется описание входных классов. По умолчанию {@link MetadataBackend#REFLECTION}.
+     */
+    public SimpleImplementor setMetadataBackend(MetadataBackend backend) {
+        this.backend = backend;
+        return this;
     }
 
-    @Override
-    public String implementFromDirectory(String directoryPath, String className) throws ImplementorException {
-        try {
-            URL jar = new URL("file://" + directoryPath);
-            ClassLoader cl = new URLClassLoader(new URL[]{jar});
-            Class<?> classToImplement = cl.loadClass(className);
+    /**
+     * Выбирает, в каком виде записывается реализация. По умолчанию {@link OutputFormat#SOURCE}.
+     */
+    public SimpleImplementor setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
 
-            return implement(classToImplement);
-        } catch (MalformedURLException e) {
-            throw new ImplementorException("Путь до входного класса не найден", e);
-        } catch (ClassNotFoundException e) {
-            throw new ImplementorException("Входной класс не найден.", e);
+    /**
+     * Выбирает, что делают методы реализации. По умолчанию {@link ImplementationMode#STUB}.
+     *
+     * В режиме {@link ImplementationMode#FORWARDING} реализация получает делегата того же типа в единственном
+     * конструкторе и передает ему вызов каждого реализуемого метода. Protected методы, объявленные в другом
+     * пакете, делегату недоступны, поэтому такие классы не реализуются.
+     */
+    public SimpleImplementor setImplementationMode(ImplementationMode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * В режиме {@link ImplementationMode#FORWARDING} добавляет в реализацию пустые protected методы
+     * {@code beforeCall(String)} и {@code afterCall(String)} и вызывает их до передачи вызова и после ее
+     * нормального завершения со стертой сигнатурой метода, например {@code f(I)}. Наследник реализации
+     * переопределяет их, а пустые вызовы JIT убирает при инлайнинге.
+     */
+    public SimpleImplementor setForwardingHooks(boolean forwardingHooks) {
+        this.forwardingHooks = forwardingHooks;
+        return this;
+    }
+
+    /**
+     * Включает инкрементальную генерацию: в выходной директории хранится манифест с отпечатками входных
+     * class файлов, и реализации, входы которых не изменились, не генерируются и не перезаписываются заново.
+     * Файл с тем же содержимым тоже не перезаписывается.
+     */
+    public SimpleImplementor setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Пишет все реализации в один zip/jar архив с той же раскладкой по пакетам, что и в выходной директории,
+     * вместо отдельных файлов. Архив дописывается в {@link #close()}; до этого он неполон.
+     * Инкрементальный режим к архиву не применяется: он каждый раз создается заново.
+     *
+     * @param archivePath путь до архива или {@code null}, чтобы писать в директорию
+     */
+    public synchronized SimpleImplementor setOutputArchive(@Nullable String archivePath) throws ImplementorException {
+        closeArchive();
+        this.archive = archivePath == null ? null : new ArchiveOutput(Paths.get(archivePath));
+        return this;
+    }
+
+    /**
+     * Подключает заранее построенный индекс типов JDK: классы стандартной библиотеки, найденные в нем,
+     * реализуются без reflection и чтения class файлов, остальные - как обычно. По умолчанию используется
+     * индекс текущей JDK из директории jar файла имплементора или из системного свойства
+     * {@code ru.hse.java.implementor.jdkIndex}, если он там есть. Индекс строится {@link ImplementorCli}
+     * с параметром {@code --build-jdk-index}.
+     *
+     * @param indexPath путь до файла индекса или {@code null}, чтобы не использовать индекс
+     * @throws ImplementorException если файл не удалось прочитать или он построен для другой версии JDK
+     */
+    public SimpleImplementor setJdkIndex(@Nullable String indexPath) throws ImplementorException {
+        try {
+            this.jdkIndex = indexPath == null ? null : JdkIndex.open(Paths.get(indexPath));
         } catch (IOException e) {
-            throw new ImplementorException("Невозможно записать сгенерированный класс.", e);
+            throw new ImplementorException("Невозможно открыть индекс JDK.", e);
         }
+        return this;
     }
 
-    private static final Pattern dotPattern = Pattern.compile("\\.");
-    private static final Pattern newLinePattern = Pattern.compile(File.separator);
+    /**
+     * Включает конвейерную запись: разрешение и рендеринг идут в потоках пула, а готовые реализации
+     * передаются через ограниченную очередь отдельным потокам записи. Когда очередь заполнена,
+     * генерация приостанавливается, поэтому память ограничена.
+     *
+     * Пакетные методы и сканирование возвращаются после записи всех своих реализаций, одиночные вызовы
+     * дожидаются записи своего класса. Фаза записи в замерах длится от постановки в очередь до конца записи,
+     * а получатель замеров вызывается из потока записи.
+     *
+     * @param writerThreads число потоков записи; 0 - писать в потоке, выполнявшем рендеринг
+     */
+    public synchronized SimpleImplementor setWriterThreads(int writerThreads) throws ImplementorException {
+        closePipeline();
+        this.pipeline = writerThreads > 0 ? new WritePipeline(writerThreads, WRITE_QUEUE_CAPACITY) : null;
+        return this;
+    }
 
-    @NotNull
-    private String implement(Class<?> classToImplement) throws IOException, ImplementorException {
-        if (!classToImplement.isInterface() && (!Modifier.isAbstract(classToImplement.getModifiers()))) {
-            throw new ImplementorException("Невозможно создать наследника класса.");
+    /**
+     * Дожидается записи всех реализаций, поставленных в очередь конвейерной записи, и сохраняет манифест.
+     *
+     * @throws ImplementorException с первой ошибкой записи, случившейся после предыдущего вызова
+     */
+    public void flush() throws ImplementorException {
+        IOException error = awaitWrites();
+        saveManifest();
+        if (error != null) {
+            throw new ImplementorException("Невозможно записать сгенерированный класс.", error);
         }
+    }
 
-        String packageName = classToImplement.getPackage().getName();
-
-        if (packageName.startsWith("java.")) {
-            packageName = "";
-        } else if (!packageName.isEmpty()) packageName += File.separator;
+    @Nullable
+    private IOException awaitWrites() throws ImplementorException {
+        WritePipeline pipeline = this.pipeline;
+        if (pipeline == null) {
+            return null;
+        }
+        try {
+            return pipeline.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImplementorException("Ожидание записи прервано.", e);
+        }
+    }
 
+    private void closePipeline() {
+        WritePipeline pipeline = this.pipeline;
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
 
-        Path dir = Paths.get(outputDirectory).
-                resolve(dotPattern.matcher(packageName).replaceAll(File.separator));
+    /**
+     * Подключает получателя замеров по каждому классу: время фаз, число методов, объем записи и попадания в кэши.
+     * Фазы также пишутся в JDK Flight Recorder событиями {@code ru.hse.java.implementor.*}, независимо от него.
+     *
+     * @param listener получатель или {@code null}, чтобы отключить
+     */
+    public SimpleImplementor setMetricsListener(@Nullable MetricsListener listener) {
+        this.metricsListener = listener;
+        return this;
+    }
 
-        //noinspection ResultOfMethodCallIgnored
-        dir.toFile().mkdirs();
+    @Override
+    public String implementFromDirectory(String directoryPath, String className) throws ImplementorException {
+        try (DirectorySource source = new DirectorySource(directoryPath)) {
+            return implement(className, source);
+        } finally {
+            saveManifest();
+        }
+    }
 
-        String filename = dir + File.separator + implName(classToImplement) + ".java";
-        try (FileWriter fileWriter = new FileWriter(filename, false)) {
-            print(classToImplement, fileWriter);
+    @Override
+    public List<ImplementorResult> implementAllFromDirectory(String directoryPath, Collection<String> classNames) {
+        try (DirectorySource source = new DirectorySource(directoryPath)) {
+            return implementAll(classNames, source);
         }
+    }
 
-        return newLinePattern.matcher(packageName).replaceAll(".") + implName(classToImplement);
+    @Override
+    public List<ImplementorResult> implementAllFromStandardLibrary(Collection<String> classNames) {
+        return implementAll(classNames, standardLibrarySource());
     }
 
-    @NotNull
-    private static String implName(Class<?> classToImplement) {
-        return classToImplement.getSimpleName() + "Impl";
+    private List<ImplementorResult> implementAll(Collection<String> classNames, MetadataSource source) {
+        try {
+            List<CompletableFuture<ImplementorResult>> results = pool.submit(() -> classNames.parallelStream().
+                    map(className -> implementResult(className, source)).
+                    collect(Collectors.toList())).join();
+            return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } finally {
+            saveManifest();
+        }
     }
 
-    @Override
-    public String implementFromStandardLibrary(String className) throws ImplementorException {
+    /**
+     * @return результат, который становится известен после записи реализации; никогда не завершается исключительно
+     */
+    private CompletableFuture<ImplementorResult> implementResult(String className, MetadataSource source) {
         try {
-            Class<?> c = Class.forName(className);
-            return implement(c);
-        } catch (ClassNotFoundException e) {
-            throw new ImplementorException("Входной класс не найден.", e);
-        } catch (IOException e) {
-            throw new ImplementorException("Невозможно записать сгенерированный класс.", e);
+            return implementAsync(className, source).handle((implClassName, error) -> error == null ?
+                    ImplementorResult.success(className, implClassName) :
+                    ImplementorResult.failure(className, writeFailure(error)));
+        } catch (ImplementorException e) {
+            return CompletableFuture.completedFuture(ImplementorResult.failure(className, e));
+        } catch (LinkageError e) {
+            // Рядом с классом может не оказаться его зависимостей; это не должно прерывать обработку остальных.
+            return CompletableFuture.completedFuture(ImplementorResult.failure(className,
+                    new ImplementorException("Входной класс не найден.", e)));
         }
     }
 
-    private static void print(Class<?> clazz, FileWriter writer) throws IOException {
-        printPackage(clazz, writer);
+    /**
+     * Реализует все открытые интерфейсы и абстрактные классы, найденные в директории с class файлами или в jar архиве.
+     * Классы отбираются по флагам доступа из заголовка class файла, поэтому остальные классы не загружаются.
+     * Результаты не накапливаются, а передаются в `results` по мере готовности, так что расход памяти
+     * растет только на имена реализаций найденных классов.
+     *
+     * Реализации вложенных типов называются по простому имени, поэтому у двух классов входа может оказаться
+     * одна и та же реализация, например {@code BuilderImpl}. Такой класс реализуется только один раз,
+     * а для остальных возвращается ошибка; какой из них будет реализован, не определено.
+     *
+     * @param path    директория с class файлами или jar архив
+     * @param results получает результат для каждого найденного класса; вызывается из потоков пула,
+     *                поэтому должен быть потокобезопасным
+     * @throws ImplementorException если путь не найден или его не удалось обойти
+     */
+    public void scanAndImplement(String path, Consumer<? super ImplementorResult> results) throws ImplementorException {
+        try (ClassPathScanner scanner = ClassPathScanner.open(ClassLoaderCache.normalize(path));
+             DirectorySource directory = new DirectorySource(path)) {
+            MetadataSource source = backend == MetadataBackend.CLASS_FILE ?
+                    new ClassFileRepository(scanner.getRoot(), ClassFileRepository.system())::load :
+                    directory;
+            scanAndImplement(scanner, source, results);
+        }
+    }
 
-        writer.append("public class ").
-                append(implName(clazz)).
-                append(clazz.isInterface() ? " implements " : " extends ").
-                append(clazz.getCanonicalName()).append(" {\n");
+    /**
+     * То же, что {@link #scanAndImplement(String, Consumer)}, для всех классов модуля JDK.
+     * С {@link MetadataBackend#CLASS_FILE} классы модуля читаются из образа JDK и не загружаются в JVM.
+     *
+     * @param moduleName имя модуля, например {@code java.sql}
+     */
+    public void scanAndImplementModule(String moduleName, Consumer<? super ImplementorResult> results)
+            throws ImplementorException {
+        try (ClassPathScanner scanner = ClassPathScanner.module(moduleName)) {
+            scanAndImplement(scanner, standardLibrarySource(), results);
+        }
+    }
 
+    private void scanAndImplement(ClassPathScanner scanner, MetadataSource classes,
+                                  Consumer<? super ImplementorResult> results) throws ImplementorException {
+        Map<String, String> owners = new ConcurrentHashMap<>();
+        MetadataSource source = className -> {
+            ClassMetadata metadata = classes.load(className);
+            String owner = owners.putIfAbsent(metadata.getImplClassName(), className);
+            if (owner != null) {
+                throw new ImplementorException("Реализация " + metadata.getImplClassName() +
+                        " уже создается для класса " + owner + ".");
+            }
+            return metadata;
+        };
+        try {
+            pool.submit(() -> scanner.forEachClassFile(classFile -> {
+                String className = scanner.className(classFile);
+                try {
+                    if (scanner.isCandidate(classFile, className)) {
+                        implementResult(className, source).thenAccept(results);
+                    }
+                } catch (ImplementorException e) {
+                    results.accept(ImplementorResult.failure(className, e));
+                }
+            })).join();
+        } catch (UncheckedIOException e) {
+            throw new ImplementorException("Невозможно прочитать входной класс.", e.getCause());
+        } finally {
+            // Ошибки записи уже переданы в results.
+            awaitWrites();
+            saveManifest();
+        }
+    }
 
-        printConstructor(clazz, writer);
+    /**
+     * Генерирует реализации в памяти и компилирует их пачками встроенным javac, не записывая исходники на диск.
+     *
+     * @return для каждого класса из `classNames` - байткод реализации или диагностика компилятора
+     */
+    public List<CompiledImplementation> compileAllFromDirectory(String directoryPath, Collection<String> classNames) {
+        try (DirectorySource source = new DirectorySource(directoryPath)) {
+            Path directory = ClassLoaderCache.normalize(directoryPath);
+            return compileAll(classNames, source, List.of(directory.toString()));
+        } catch (ImplementorException e) {
+            return classNames.stream().
+                    map(className -> CompiledImplementation.failure(className, null, e.getMessage())).
+                    collect(Collectors.toList());
+        }
+    }
 
-        printMethods(clazz, writer);
+    /**
+     * То же, что {@link #compileAllFromDirectory(String, Collection)}, для классов стандартной библиотеки.
+     */
+    public List<CompiledImplementation> compileAllFromStandardLibrary(Collection<String> classNames) {
+        return compileAll(classNames, standardLibrarySource(), List.of());
+    }
 
-        writer.append("}\n");
+    private List<CompiledImplementation> compileAll(Collection<String> classNames, MetadataSource source,
+                                                    List<String> classPath) {
+        List<InMemoryCompiler.Unit> units = pool.submit(() -> classNames.parallelStream().
+                map(className -> {
+                    try {
+                        ClassMetadata metadata = source.load(className);
+                        checkCanImplement(metadata);
+                        return new InMemoryCompiler.Unit(className, metadata.getImplClassName(),
+                                SourceRenderer.render(metadata, mode, forwardingHooks).toString());
+                    } catch (ImplementorException e) {
+                        return new InMemoryCompiler.Unit(className, e);
+                    }
+                }).
+                collect(Collectors.toList())).join();
+        return InMemoryCompiler.compile(units, classPath);
     }
 
-    private static void printMethods(Class<?> clazz, FileWriter writer) throws IOException {
-        for (Method m : methodsToGen(clazz)) {
-            writer.append(tab + "@Override").append("\n");
-            writer.append(tab).append(Modifier.toString(m.getModifiers() & ~Modifier.ABSTRACT)).append(" ");
-            writer.append(m.getReturnType().getCanonicalName()).append(" ");
-            writer.append(m.getName()).append("(");
-            Class<?>[] params = m.getParameterTypes();
-            for (int i = 0; i < params.length; i++) {
-                Class<?> param = params[i];
-                writer.append(param.getCanonicalName()).append(" ").append("param").append(String.valueOf(i));
-                if (i != params.length - 1) {
-                    writer.append(", ");
-                }
+    private interface MetadataSource {
+        ClassMetadata load(String className) throws ImplementorException;
+    }
+
+    /**
+     * Классы из директории. Загрузчик берется из кэша при первом обращении и возвращается в него при закрытии,
+     * поэтому вытеснение из кэша не закрывает загрузчик, пока источник используется.
+     */
+    private final class DirectorySource implements MetadataSource, AutoCloseable {
+        private final String directoryPath;
+        private final boolean readClassFiles = backend == MetadataBackend.CLASS_FILE;
+        private ClassLoaderCache.Lease lease;
+
+        DirectorySource(String directoryPath) {
+            this.directoryPath = directoryPath;
+        }
+
+        @Override
+        public ClassMetadata load(String className) throws ImplementorException {
+            if (readClassFiles) {
+                return directoryRepository(directoryPath).load(className);
             }
-            writer.append(")");
-            printThrows(writer, m.getExceptionTypes());
+            return loadClass(lease().getLoader(), className);
+        }
 
-            writer.append(" {" + tab).append("\n").append(tab + tab + "return ").append(getDefaultValue(m.getReturnType())).append(";\n");
-            writer.append(tab + "}").append("\n\n");
+        private synchronized ClassLoaderCache.Lease lease() throws ImplementorException {
+            if (lease == null) {
+                lease = loaders.acquire(directoryPath);
+            }
+            return lease;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (lease != null) {
+                lease.close();
+            }
         }
     }
 
-    private static void printConstructor(Class<?> clazz, FileWriter writer) throws IOException {
-        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
-        for (Constructor<?> constructor : constructors) {
-            if (!(Modifier.isPublic(constructor.getModifiers()) ||
-                    Modifier.isProtected(constructor.getModifiers())) || constructor.getParameterCount() == 0)
-                continue;
+    private MetadataSource standardLibrarySource() {
+        MetadataSource source = backend == MetadataBackend.CLASS_FILE ?
+                ClassFileRepository.system()::load :
+                className -> loadClass(null, className);
+        JdkIndex index = jdkIndex;
+        if (index == null) {
+            return source;
+        }
+        return className -> {
+            ClassMetadata metadata = index.find(className);
+            return metadata != null ? metadata : source.load(className);
+        };
+    }
 
-            Class<?>[] params = constructor.getParameterTypes();
-            writer.append("\n").
-                    append(tab + "public ").append(implName(clazz)).append("()");
+    private ClassFileRepository directoryRepository(String directoryPath) throws ImplementorException {
+        Path directory = ClassLoaderCache.normalize(directoryPath);
+        synchronized (repositories) {
+            return repositories.computeIfAbsent(directory,
+                    root -> new ClassFileRepository(root, ClassFileRepository.system()));
+        }
+    }
 
-            printThrows(writer, constructor.getExceptionTypes());
-            writer.append(" {").append("\n").
-                    append(tab + tab + "super(");
+    /**
+     * Дожидается конвейерной записи, дописывает архив, если реализации пишутся в него, и закрывает закэшированные загрузчики классов.
+     */
+    @Override
+    public void close() throws ImplementorException {
+        try {
+            closePipeline();
+        } finally {
+            saveManifest();
+            try {
+                closeArchive();
+            } finally {
+                loaders.close();
+            }
+        }
+    }
 
-            String comma = "";
-            for (Class<?> param : params) {
-                writer.append(comma).append("(").
-                        append(param.getCanonicalName()).append(") ").
-                        append(getDefaultValue(param));
-                comma = ", ";
+    private void closeArchive() throws ImplementorException {
+        ArchiveOutput archive = this.archive;
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                throw new ImplementorException("Невозможно записать сгенерированный класс.", e);
             }
-            writer.append(");\n" + tab + "}\n");
-            break;
         }
     }
 
-    private static void printPackage(Class<?> clazz, FileWriter writer) throws IOException {
-        final String packageName = clazz.getPackage().getName();
-        if (!packageName.isEmpty() && !packageName.startsWith("java.")) {
-            writer.append("package ").append(packageName).append(";\n");
+    /**
+     * @param cl загрузчик входного класса, {@code null} для стандартной библиотеки
+     */
+    private static ClassMetadata loadClass(ClassLoader cl, String className) throws ImplementorException {
+        try {
+            Class<?> classToImplement = cl == null ? Class.forName(className) : cl.loadClass(className);
+            return ReflectionClassMetadata.of(classToImplement);
+        } catch (ClassNotFoundException e) {
+            throw new ImplementorException("Входной класс не найден.", e);
         }
     }
 
-    private static void printThrows(FileWriter out, Class<?>[] exceptionTypes) throws IOException {
-        String before = " throws ";
-        for (Class<?> exceptionType : exceptionTypes) {
-            out.append(before).
-                    append(exceptionType.getCanonicalName());
-            before = ", ";
+    private static final Pattern dotPattern = Pattern.compile("\\.");
+
+    @NotNull
+    private String implement(String className, MetadataSource source) throws ImplementorException {
+        try {
+            return implementAsync(className, source).join();
+        } catch (CompletionException e) {
+            throw writeFailure(e);
         }
     }
 
-    private static String getDefaultValue(Class<?> type) {
-        if (type.isPrimitive()) {
-            if (Boolean.TYPE.equals(type)) {
-                return "false";
-            } else if (Void.TYPE.equals(type)) {
-                return "";
-            }
-            return "0";
-        } else {
-            return "null";
+    /**
+     * @return завершается, когда реализация записана; при конвейерной записи - позже возврата из метода
+     * @throws ImplementorException если класс не удалось загрузить или реализовать
+     */
+    private CompletableFuture<String> implementAsync(String className, MetadataSource source)
+            throws ImplementorException {
+        ImplementTrace trace = new ImplementTrace(className, metricsListener);
+        CompletableFuture<String> written;
+        try {
+            trace.begin(ImplementMetrics.Phase.LOAD);
+            ClassMetadata classToImplement = source.load(className);
+            written = implement(classToImplement, trace);
+        } catch (ImplementorException | RuntimeException | Error e) {
+            trace.finish(null, e);
+            throw e;
         }
+        // При конвейерной записи замер завершается в потоке записи, когда известно, чем она закончилась.
+        return written.whenComplete((implClassName, error) ->
+                trace.finish(implClassName, error == null ? null : writeFailure(error)));
     }
 
-    private static Set<Method> methodsToGen(Class<?> clazz) {
-        return methodsToGen(clazz, new HashSet<>());
+    private static ImplementorException writeFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return new ImplementorException("Невозможно записать сгенерированный класс.", cause);
     }
 
-    private static Set<Method> methodsToGen(Class<?> clazz, Set<Method> methods) {
-        if (clazz == null)
-            return new HashSet<>();
+    private CompletableFuture<String> implement(ClassMetadata classToImplement, ImplementTrace trace)
+            throws ImplementorException {
+        checkCanImplement(classToImplement);
 
-        for (Class<?> i : clazz.getInterfaces()) {
-            addMethods(i, methodsToGen(i), methods);
+        String implClassName = classToImplement.getImplClassName();
+        String extension = outputFormat == OutputFormat.CLASS ? ".class" : ".java";
+
+        ArchiveOutput archive = this.archive;
+        if (archive != null) {
+            String entryName = implClassName.replace('.', '/') + extension;
+            return write(implClassName, classToImplement, trace, content -> archive.write(entryName, content));
         }
 
-        addMethods(clazz, methodsToGen(clazz.getSuperclass(), methods), methods);
+        Path dir = outputDirectory.resolve(dotPattern.matcher(classToImplement.getImplPackageName()).
+                replaceAll(Matcher.quoteReplacement(File.separator)));
+        Path target = dir.resolve(classToImplement.getImplSimpleName() + extension);
 
-        addMethods(clazz, Set.of(clazz.getDeclaredMethods()), methods);
+        GenerationManifest manifest = incremental ? manifest() : null;
+        if (manifest == null) {
+            return write(implClassName, classToImplement, trace, content -> {
+                createDirectories(dir);
+                synchronized (writeLock(target)) {
+                    write(target, content);
+                }
+                return true;
+            });
+        }
 
-        return new HashSet<>(methods);
+        trace.begin(ImplementMetrics.Phase.FINGERPRINT);
+        String fingerprint = classToImplement.fingerprint();
+        if (fingerprint != null) {
+            fingerprint = variant() + ":" + fingerprint;
+        }
+        if (manifest.isUpToDate(implClassName, fingerprint, target)) {
+            trace.upToDate = true;
+            return CompletableFuture.completedFuture(implClassName);
+        }
+        String inputFingerprint = fingerprint;
+        return write(implClassName, classToImplement, trace, content -> {
+            createDirectories(dir);
+            synchronized (writeLock(target)) {
+                boolean written = writeIfChanged(target, content);
+                manifest.put(implClassName, inputFingerprint);
+                return written;
+            }
+        });
     }
 
-    private static void addMethods(Class<?> clazz, Set<Method> toAdd, Set<Method> methods) {
-
-        for (Method m : toAdd) {
-            int modifiers = m.getModifiers();
-            if (!(Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) ||
-                    Modifier.isStatic(modifiers) ||
-                    m.isBridge()) {
-                continue;
+    /**
+     * Разрешает методы, печатает реализацию и записывает ее сразу или, при конвейерной записи, ставит в очередь.
+     */
+    private CompletableFuture<String> write(String implClassName, ClassMetadata classToImplement,
+                                            ImplementTrace trace, WritePipeline.WriteAction action)
+            throws ImplementorException {
+        try {
+            ByteBuffer content = resolveAndRender(classToImplement, trace);
+
+            trace.begin(ImplementMetrics.Phase.WRITE);
+            int size = content.remaining();
+            WritePipeline pipeline = this.pipeline;
+            if (pipeline != null) {
+                return pipeline.submit(content, action).thenApply(written -> {
+                    if (written) {
+                        trace.bytesWritten = size;
+                    }
+                    return implClassName;
+                });
+            }
+            if (action.write(content)) {
+                trace.bytesWritten = size;
             }
+            return CompletableFuture.completedFuture(implClassName);
+        } catch (IOException e) {
+            throw new ImplementorException("Невозможно записать сгенерированный класс.", e);
+        }
+    }
+
+    private ByteBuffer resolveAndRender(ClassMetadata classToImplement, ImplementTrace trace) throws IOException {
+        trace.begin(ImplementMetrics.Phase.RESOLVE);
+        trace.resolutionCached = classToImplement.isResolved();
+        trace.methodCount = classToImplement.methodsToGen().size();
 
-            Method toRemove = null;
-            for (Method method : methods) {
-                if (methodEq(method, m)) {
-                    toRemove = method;
-                    break;
+        trace.begin(ImplementMetrics.Phase.RENDER);
+        return render(classToImplement);
+    }
+
+    /**
+     * Реализация определяется собственным загрузчиком поверх загрузчика `classToImplement` и кэшируется
+     * в самом входном типе, поэтому выгружается вместе с ним. Кэш общий для всех имплементоров
+     * с тем же {@link ImplementationMode}. Реализация попадает в другой пакет времени выполнения, чем входной тип,
+     * поэтому в режиме {@link ImplementationMode#FORWARDING} классы с protected методами не поддерживаются.
+     */
+    @Override
+    public <T> Class<? extends T> implementClass(Class<T> classToImplement) throws ImplementorException {
+        ClassMetadata metadata = ReflectionClassMetadata.of(classToImplement);
+        checkCanImplement(metadata);
+        if (mode == ImplementationMode.FORWARDING) {
+            for (MethodMetadata m : metadata.methodsToGen()) {
+                if (Modifier.isProtected(m.getModifiers())) {
+                    throw new ImplementorException("Невозможно передать делегату вызов protected метода " + m + ".");
                 }
             }
+        }
+        return ImplementationDefiner.of(mode, forwardingHooks).implementation(classToImplement).
+                asSubclass(classToImplement);
+    }
 
-            if (toRemove != null) {
-                methods.remove(toRemove);
-            }
+    /**
+     * Печатает исходный код реализации данного класса/интерфейса в `sink`, не создавая файлов.
+     */
+    public void render(Class<?> classToImplement, OutputSink sink) throws ImplementorException {
+        ClassMetadata metadata = ReflectionClassMetadata.of(classToImplement);
+        checkCanImplement(metadata);
+        try {
+            sink.write(SourceRenderer.render(metadata, mode, forwardingHooks));
+        } catch (IOException e) {
+            throw new ImplementorException("Невозможно записать сгенерированный класс.", e);
+        }
+    }
 
-            if (Modifier.isAbstract(modifiers) || clazz.isInterface()) {
-                methods.add(m);
+    /**
+     * @return содержимое файла реализации; для исходного кода - буфер потока, действительный до следующего рендера
+     */
+    private ByteBuffer render(ClassMetadata classToImplement) throws IOException {
+        if (outputFormat == OutputFormat.CLASS) {
+            return ByteBuffer.wrap(ClassFileWriter.write(classToImplement, mode, forwardingHooks));
+        }
+        return SourceRenderer.encode(SourceRenderer.render(classToImplement, mode, forwardingHooks),
+                Charset.defaultCharset());
+    }
+
+    /**
+     * Все, кроме входных классов, от чего зависит содержимое реализации; входит в отпечаток манифеста.
+     */
+    private String variant() {
+        if (mode == ImplementationMode.STUB) {
+            return outputFormat.toString();
+        }
+        return outputFormat + "/" + mode + (forwardingHooks ? "/hooks" : "");
+    }
+
+    /**
+     * Создает директорию пакета один раз за время жизни имплементора. Если директорию удалят снаружи,
+     * запись в нее завершится ошибкой.
+     */
+    private void createDirectories(Path dir) throws IOException {
+        if (!createdDirectories.contains(dir)) {
+            Files.createDirectories(dir);
+            createdDirectories.add(dir);
+        }
+    }
+
+    private Object writeLock(Path target) {
+        return writeLocks[(target.hashCode() & Integer.MAX_VALUE) % writeLocks.length];
+    }
+
+    /**
+     * Пишет во временный файл рядом с `target` и переименовывает его в `target`.
+     * Вызывается под {@link #writeLock(Path)} цели. Временный файл создается не {@link Files#createTempFile},
+     * чтобы у реализации были обычные права, а не только для владельца.
+     */
+    private static void write(Path target, ByteBuffer content) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + "." +
+                Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
             }
+        } finally {
+            Files.deleteIfExists(tmp);
         }
     }
 
-    private static boolean methodEq(Method m1, Method m2) {
-        if (!m1.getName().equals(m2.getName())) {
+    /**
+     * Не трогает файл, если в нем уже лежит то же самое содержимое, чтобы не менять время модификации.
+     *
+     * @return {@code true}, если файл был записан
+     */
+    private static boolean writeIfChanged(Path target, ByteBuffer content) throws IOException {
+        if (Files.isRegularFile(target) && Files.size(target) == content.remaining() &&
+                ByteBuffer.wrap(Files.readAllBytes(target)).equals(content)) {
             return false;
         }
+        write(target, content);
+        return true;
+    }
 
-        Class<?>[] param1 = m1.getParameterTypes();
-        Class<?>[] param2 = m2.getParameterTypes();
-        if (param1.length != param2.length) {
-            return false;
+    private GenerationManifest manifest() {
+        GenerationManifest result = manifest;
+        if (result == null) {
+            synchronized (this) {
+                result = manifest;
+                if (result == null) {
+                    result = GenerationManifest.load(outputDirectory);
+                    manifest = result;
+                }
+            }
         }
+        return result;
+    }
 
-        for (int i = 0; i < param1.length; ++i) {
-            if (!param1[i].getCanonicalName().equals(param2[i].getCanonicalName())) {
-                return false;
+    /**
+     * Манифест нужен только для ускорения следующих запусков, поэтому ошибка его записи не делает генерацию
+     * неудачной: в худшем случае все реализации будут сгенерированы заново.
+     */
+    private void saveManifest() {
+        GenerationManifest result = manifest;
+        if (result != null) {
+            try {
+                result.save();
+            } catch (IOException ignored) {
             }
         }
+    }
 
-        return true;
+    private void checkCanImplement(ClassMetadata classToImplement) throws ImplementorException {
+        if (!classToImplement.isInterface() && (!Modifier.isAbstract(classToImplement.getModifiers()))) {
+            throw new ImplementorException("Невозможно создать наследника класса.");
+        }
+        if (mode == ImplementationMode.FORWARDING) {
+            checkCanForward(classToImplement);
+        } else if (mode == ImplementationMode.COUNTING) {
+            checkNotDeclared(classToImplement, SourceRenderer.SNAPSHOT_METHOD + "()", SourceRenderer.RESET_METHOD + "()");
+        }
     }
 
-}
+    private void checkCanForward(ClassMetadata classToImplement) throws ImplementorException {
+        String implPackage = classToImplement.getImplPackageName();
+        for (MethodMetadata m : classToImplement.methodsToGen()) {
+            if (Modifier.isProtected(m.getModifiers()) && !m.getDeclaringPackage().equals(implPackage)) {
+                throw new ImplementorException("Невозможно передать делегату вызов protected метода " + m + ".");
+            }
+        }
+        if (forwardingHooks) {
+            checkNotDeclared(classToImplement, SourceRenderer.BEFORE_HOOK + "(Ljava/lang/String;)",
+                    SourceRenderer.AFTER_HOOK + "(Ljava/lang/String;)");
+        }
+    }
 
+    /**
+     * Проверяет, что методы, которые добавляет в реализацию выбранный режим, не конфликтуют с методами входного класса.
+     *
+     * @param signatures стертые сигнатуры добавляемых методов
+     */
+    private static void checkNotDeclared(ClassMetadata classToImplement, String... signatures)
+            throws ImplementorException {
+        Map<String, MethodMetadata> members = classToImplement.members();
+        for (String signature : signatures) {
+            if (members.containsKey(signature)) {
+                throw new ImplementorException("Метод " + signature + " уже объявлен во входном классе.");
+            }
+        }
+    }
 
+    @Override
+    public String implementFromStandardLibrary(String className) throws ImplementorException {
+        try {
+            return implement(className, standardLibrarySource());
+        } finally {
+            saveManifest();
+        }
+    }
+
+}
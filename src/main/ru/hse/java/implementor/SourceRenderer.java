@@ -0,0 +1,313 @@
+package ru.hse.java.implementor;
+
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+
+/**
+ * Печатает исходный код реализации в переиспользуемый буфер потока, чтобы файл целиком
+ * уходил в {@link OutputSink} одним вызовом.
+ */
+final class SourceRenderer {
+    static final String tab = "    ";
+
+    /**
+     * Имена поля с делегатом и хуков, которые реализация в режиме {@link ImplementationMode#FORWARDING}
+     * вызывает до и после передачи вызова. Хук получает стертую сигнатуру метода, например {@code f(I)}.
+     */
+    static final String DELEGATE_FIELD = "delegate";
+    static final String BEFORE_HOOK = "beforeCall";
+    static final String AFTER_HOOK = "afterCall";
+
+    /**
+     * Имена статического массива счетчиков и методов доступа к нему в режиме {@link ImplementationMode#COUNTING}.
+     */
+    static final String COUNTERS_FIELD = "CALLS";
+    static final String SNAPSHOT_METHOD = "callCounts";
+    static final String RESET_METHOD = "resetCallCounts";
+    private static final String LONG_ADDER = "java.util.concurrent.atomic.LongAdder";
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private static final ThreadLocal<StringBuilder> chars =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+    private static final ThreadLocal<ByteBuffer> bytes =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_CAPACITY));
+    private static final ThreadLocal<CharsetEncoder> encoders = new ThreadLocal<>();
+
+    private SourceRenderer() {
+    }
+
+    /**
+     * @return буфер текущего потока; он действителен до следующего вызова {@code render} в этом потоке
+     */
+    static StringBuilder render(ClassMetadata clazz) {
+        return render(clazz, ImplementationMode.STUB, false);
+    }
+
+    /**
+     * @param hooks вызывать ли хуки {@link #BEFORE_HOOK} и {@link #AFTER_HOOK}; только для
+     *              {@link ImplementationMode#FORWARDING}
+     * @return буфер текущего потока; он действителен до следующего вызова {@code render} в этом потоке
+     */
+    static StringBuilder render(ClassMetadata clazz, ImplementationMode mode, boolean hooks) {
+        StringBuilder out = chars.get();
+        out.setLength(0);
+        if (mode == ImplementationMode.FORWARDING) {
+            printForwarding(clazz, hooks, out);
+        } else if (mode == ImplementationMode.COUNTING) {
+            printCounting(clazz, out);
+        } else {
+            print(clazz, out);
+        }
+        return out;
+    }
+
+    /**
+     * Кодирует текст в байтовый буфер текущего потока.
+     *
+     * @return буфер, готовый к чтению; он действителен до следующего вызова {@code encode} в этом потоке
+     */
+    static ByteBuffer encode(CharSequence content, Charset charset) throws CharacterCodingException {
+        CharsetEncoder encoder = encoders.get();
+        if (encoder == null || !encoder.charset().equals(charset)) {
+            encoder = charset.newEncoder().
+                    onMalformedInput(CodingErrorAction.REPLACE).
+                    onUnmappableCharacter(CodingErrorAction.REPLACE);
+            encoders.set(encoder);
+        }
+
+        ByteBuffer out = bytes.get();
+        int expected = (int) (content.length() * (double) encoder.maxBytesPerChar());
+        if (out.capacity() < expected) {
+            out = ByteBuffer.allocate(expected);
+            bytes.set(out);
+        }
+        out.clear();
+
+        encoder.reset();
+        CharBuffer in = CharBuffer.wrap(content);
+        CoderResult result = encoder.encode(in, out, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = encoder.flush(out);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        return out.flip();
+    }
+
+    private static void print(ClassMetadata clazz, StringBuilder out) {
+        printHeader(clazz, out);
+
+        printConstructor(clazz, out);
+
+        printMethods(clazz, out);
+
+        out.append("}\n");
+    }
+
+    /**
+     * Печатает реализацию, которая передает каждый вызов делегату. Тела методов зависят от класса,
+     * поэтому, в отличие от заглушек, не кэшируются в {@link MethodMetadata}.
+     */
+    private static void printForwarding(ClassMetadata clazz, boolean hooks, StringBuilder out) {
+        printHeader(clazz, out);
+
+        String type = clazz.getCanonicalName();
+        out.append("\n" + tab + "private final ").append(type).append(" " + DELEGATE_FIELD + ";\n\n");
+
+        MethodMetadata constructor = clazz.superConstructor();
+        out.append(tab + "public ").append(clazz.getImplSimpleName()).
+                append("(").append(type).append(" " + DELEGATE_FIELD + ")");
+        if (constructor != null) {
+            printThrows(out, constructor.getExceptionTypes());
+            out.append(" {\n");
+            printSuperCall(constructor, out);
+        } else {
+            out.append(" {\n");
+        }
+        out.append(tab + tab + "this." + DELEGATE_FIELD + " = java.util.Objects.requireNonNull(" + DELEGATE_FIELD + ");\n").
+                append(tab + "}\n");
+
+        if (hooks) {
+            out.append("\n" + tab + "protected void " + BEFORE_HOOK + "(java.lang.String method) {\n" + tab + "}\n").
+                    append("\n" + tab + "protected void " + AFTER_HOOK + "(java.lang.String method) {\n" + tab + "}\n");
+        }
+        out.append("\n");
+
+        for (MethodMetadata m : clazz.methodsToGen()) {
+            printForwardingMethod(m, hooks, out);
+        }
+
+        out.append("}\n");
+    }
+
+    private static void printForwardingMethod(MethodMetadata m, boolean hooks, StringBuilder out) {
+        printSignature(m, out);
+        out.append(" {\n");
+
+        boolean isVoid = m.getReturnType().getDescriptor().equals("V");
+        StringBuilder call = new StringBuilder(DELEGATE_FIELD + ".").append(m.getName()).append("(");
+        for (int i = 0; i < m.getParameterTypes().size(); i++) {
+            call.append(i == 0 ? "" : ", ").append("param").append(i);
+        }
+        call.append(")");
+
+        if (!hooks) {
+            out.append(tab + tab).append(isVoid ? "" : "return ").append(call).append(";\n");
+        } else {
+            String method = "\"" + m.getSignature() + "\"";
+            out.append(tab + tab + BEFORE_HOOK + "(").append(method).append(");\n");
+            out.append(tab + tab);
+            if (!isVoid) {
+                out.append(m.getReturnType().getCanonicalName()).append(" result = ");
+            }
+            out.append(call).append(";\n");
+            out.append(tab + tab + AFTER_HOOK + "(").append(method).append(");\n");
+            if (!isVoid) {
+                out.append(tab + tab + "return result;\n");
+            }
+        }
+        out.append(tab + "}\n\n");
+    }
+
+    /**
+     * Печатает заглушки, которые считают свои вызовы. Счетчик метода - элемент массива с его порядковым номером,
+     * поэтому тела, как и у делегирующей реализации, не кэшируются.
+     */
+    private static void printCounting(ClassMetadata clazz, StringBuilder out) {
+        printHeader(clazz, out);
+
+        List<MethodMetadata> methods = clazz.methodsToGen();
+        out.append("\n" + tab + "private static final " + LONG_ADDER + "[] " + COUNTERS_FIELD + " = new " + LONG_ADDER + "[").
+                append(methods.size()).append("];\n\n").
+                append(tab + "static {\n").
+                append(tab + tab + "for (int i = 0; i < " + COUNTERS_FIELD + ".length; i++) {\n").
+                append(tab + tab + tab + COUNTERS_FIELD + "[i] = new " + LONG_ADDER + "();\n").
+                append(tab + tab + "}\n" + tab + "}\n");
+
+        printConstructor(clazz, out);
+
+        out.append("\n" + tab + "public static java.util.Map<java.lang.String, java.lang.Long> " + SNAPSHOT_METHOD + "() {\n").
+                append(tab + tab + "java.util.Map<java.lang.String, java.lang.Long> counts = new java.util.LinkedHashMap<>();\n");
+        for (int i = 0; i < methods.size(); i++) {
+            out.append(tab + tab + "counts.put(\"").append(methods.get(i).getSignature()).
+                    append("\", " + COUNTERS_FIELD + "[").append(i).append("].sum());\n");
+        }
+        out.append(tab + tab + "return counts;\n" + tab + "}\n");
+
+        out.append("\n" + tab + "public static void " + RESET_METHOD + "() {\n").
+                append(tab + tab + "for (" + LONG_ADDER + " counter : " + COUNTERS_FIELD + ") {\n").
+                append(tab + tab + tab + "counter.reset();\n").
+                append(tab + tab + "}\n" + tab + "}\n\n");
+
+        for (int i = 0; i < methods.size(); i++) {
+            MethodMetadata m = methods.get(i);
+            printSignature(m, out);
+            out.append(" {\n").
+                    append(tab + tab + COUNTERS_FIELD + "[").append(i).append("].increment();\n").
+                    append(tab + tab + "return ").append(m.getReturnType().getDefaultValue()).append(";\n").
+                    append(tab + "}\n\n");
+        }
+
+        out.append("}\n");
+    }
+
+    private static void printMethods(ClassMetadata clazz, StringBuilder out) {
+        for (MethodMetadata m : clazz.methodsToGen()) {
+            String source = m.getRenderedSource();
+            if (source == null) {
+                StringBuilder method = new StringBuilder();
+                printMethod(m, method);
+                source = method.toString();
+                m.setRenderedSource(source);
+            }
+            out.append(source);
+        }
+    }
+
+    private static void printMethod(MethodMetadata m, StringBuilder out) {
+        printSignature(m, out);
+
+        out.append(" {" + tab).append("\n").append(tab + tab + "return ").append(m.getReturnType().getDefaultValue()).append(";\n");
+        out.append(tab + "}").append("\n\n");
+    }
+
+    private static void printSignature(MethodMetadata m, StringBuilder out) {
+        out.append(tab + "@Override").append("\n");
+        out.append(tab).append(Modifier.toString(m.getModifiers() & ~Modifier.ABSTRACT)).append(" ");
+        out.append(m.getReturnType().getCanonicalName()).append(" ");
+        out.append(m.getName()).append("(");
+        List<TypeRef> params = m.getParameterTypes();
+        for (int i = 0; i < params.size(); i++) {
+            TypeRef param = params.get(i);
+            out.append(param.getCanonicalName()).append(" ").append("param").append(i);
+            if (i != params.size() - 1) {
+                out.append(", ");
+            }
+        }
+        out.append(")");
+        printThrows(out, m.getExceptionTypes());
+    }
+
+    private static void printConstructor(ClassMetadata clazz, StringBuilder out) {
+        MethodMetadata constructor = clazz.superConstructor();
+        if (constructor == null) {
+            return;
+        }
+
+        out.append("\n").
+                append(tab + "public ").append(clazz.getImplSimpleName()).append("()");
+
+        printThrows(out, constructor.getExceptionTypes());
+        out.append(" {").append("\n");
+        printSuperCall(constructor, out);
+        out.append(tab + "}\n");
+    }
+
+    private static void printSuperCall(MethodMetadata constructor, StringBuilder out) {
+        out.append(tab + tab + "super(");
+
+        String comma = "";
+        for (TypeRef param : constructor.getParameterTypes()) {
+            out.append(comma).append("(").
+                    append(param.getCanonicalName()).append(") ").
+                    append(param.getDefaultValue());
+            comma = ", ";
+        }
+        out.append(");\n");
+    }
+
+    private static void printHeader(ClassMetadata clazz, StringBuilder out) {
+        printPackage(clazz, out);
+
+        out.append("public class ").
+                append(clazz.getImplSimpleName()).
+                append(clazz.isInterface() ? " implements " : " extends ").
+                append(clazz.getCanonicalName()).append(" {\n");
+    }
+
+    private static void printPackage(ClassMetadata clazz, StringBuilder out) {
+        final String packageName = clazz.getImplPackageName();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n");
+        }
+    }
+
+    private static void printThrows(StringBuilder out, List<TypeRef> exceptionTypes) {
+        String before = " throws ";
+        for (TypeRef exceptionType : exceptionTypes) {
+            out.append(before).
+                    append(exceptionType.getCanonicalName());
+            before = ", ";
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ru.hse.java.implementor;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Ссылка на тип параметра, возвращаемого значения или исключения,
+ * для которой не требуется загружать сам тип.
+ */
+final class TypeRef {
+    private final String descriptor;
+    private final String canonicalName;
+
+    private TypeRef(String descriptor, String canonicalName) {
+        this.descriptor = descriptor;
+        this.canonicalName = canonicalName;
+    }
+
+    /**
+     * Ссылки на загруженные классы кэшируются: одни и те же типы параметров встречаются во множестве методов,
+     * а {@link Class#getCanonicalName()} каждый раз строит новую строку.
+     */
+    private static final ClassValue<TypeRef> byClass = new ClassValue<>() {
+        @Override
+        protected TypeRef computeValue(Class<?> type) {
+            StringBuilder sb = new StringBuilder();
+            appendDescriptor(sb, type);
+            return new TypeRef(sb.toString(), type.getCanonicalName());
+        }
+    };
+
+    @NotNull
+    static TypeRef of(Class<?> type) {
+        return byClass.get(type);
+    }
+
+    /**
+     * @param descriptor    дескриптор, например {@code [Ljava/util/Map$Entry;}
+     * @param canonicalName каноническое имя, например {@code java.util.Map.Entry[]}
+     */
+    @NotNull
+    static TypeRef of(String descriptor, String canonicalName) {
+        return new TypeRef(descriptor, canonicalName);
+    }
+
+    /**
+     * @param descriptor дескриптор поля из class файла, например {@code [Ljava/util/Map$Entry;}
+     */
+    @NotNull
+    static TypeRef fromDescriptor(String descriptor) {
+        int dims = 0;
+        while (descriptor.charAt(dims) == '[') {
+            dims++;
+        }
+
+        String element;
+        char tag = descriptor.charAt(dims);
+        if (tag == 'L') {
+            element = canonicalName(descriptor.substring(dims + 1, descriptor.length() - 1));
+        } else {
+            element = primitiveName(tag);
+        }
+
+        StringBuilder sb = new StringBuilder(element);
+        for (int i = 0; i < dims; i++) {
+            sb.append("[]");
+        }
+        return new TypeRef(descriptor, sb.toString());
+    }
+
+    /**
+     * @param internalName имя класса во внутренней форме, например {@code java/io/IOException}
+     */
+    @NotNull
+    static TypeRef fromInternalName(String internalName) {
+        if (internalName.startsWith("[")) {
+            return fromDescriptor(internalName);
+        }
+        return new TypeRef('L' + internalName + ';', canonicalName(internalName));
+    }
+
+    /**
+     * Вложенные классы в дескрипторах отделены от внешних знаком {@code $}.
+     */
+    static String canonicalName(String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    String getDescriptor() {
+        return descriptor;
+    }
+
+    String getCanonicalName() {
+        return canonicalName;
+    }
+
+    boolean isPrimitive() {
+        return descriptor.length() == 1;
+    }
+
+    String getDefaultValue() {
+        if (isPrimitive()) {
+            if (descriptor.charAt(0) == 'Z') {
+                return "false";
+            } else if (descriptor.charAt(0) == 'V') {
+                return "";
+            }
+            return "0";
+        } else {
+            return "null";
+        }
+    }
+
+    static void appendDescriptor(StringBuilder sb, Class<?> type) {
+        if (type.isArray()) {
+            sb.append(type.getName().replace('.', '/'));
+        } else if (type.isPrimitive()) {
+            sb.append(primitiveDescriptor(type));
+        } else {
+            sb.append('L').append(type.getName().replace('.', '/')).append(';');
+        }
+    }
+
+    private static char primitiveDescriptor(Class<?> type) {
+        if (type == int.class) {
+            return 'I';
+        } else if (type == long.class) {
+            return 'J';
+        } else if (type == boolean.class) {
+            return 'Z';
+        } else if (type == byte.class) {
+            return 'B';
+        } else if (type == char.class) {
+            return 'C';
+        } else if (type == short.class) {
+            return 'S';
+        } else if (type == float.class) {
+            return 'F';
+        } else if (type == double.class) {
+            return 'D';
+        }
+        return 'V';
+    }
+
+    private static String primitiveName(char tag) {
+        switch (tag) {
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'Z':
+                return "boolean";
+            case 'B':
+                return "byte";
+            case 'C':
+                return "char";
+            case 'S':
+                return "short";
+            case 'F':
+                return "float";
+            case 'D':
+                return "double";
+            case 'V':
+                return "void";
+            default:
+                throw new IllegalArgumentException("Неизвестный дескриптор типа: " + tag);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return canonicalName;
+    }
+}
@@ -0,0 +1,149 @@
+package ru.hse.java.implementor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Стадия записи конвейера: потоки, занятые разрешением и рендерингом, отдают готовые буферы
+ * в ограниченную очередь, а отдельные потоки ввода-вывода пишут их на диск.
+ * Когда очередь заполнена, отдающий поток ждет, поэтому в памяти находится не больше
+ * {@code capacity} неписаных реализаций.
+ */
+final class WritePipeline implements AutoCloseable {
+
+    interface WriteAction {
+        /**
+         * @param content собственная копия содержимого, ее можно не копировать
+         * @return {@code true}, если данные действительно записаны, а не пропущены как неизменившиеся
+         */
+        boolean write(ByteBuffer content) throws IOException;
+    }
+
+    private static final AtomicInteger pipelines = new AtomicInteger();
+
+    private final ThreadPoolExecutor writers;
+    private final Object lock = new Object();
+    private int pending;
+    private IOException firstError;
+
+    WritePipeline(int threads, int capacity) {
+        String prefix = "implementor-writer-" + pipelines.incrementAndGet() + "-";
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        writers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), factory, (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException();
+                    }
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Копирует `content` и ставит запись в очередь; ждет, если очередь заполнена.
+     *
+     * @return завершается после записи результатом {@link WriteAction#write(ByteBuffer)}
+     * или исключительно с {@link IOException}
+     */
+    CompletableFuture<Boolean> submit(ByteBuffer content, WriteAction action) {
+        ByteBuffer copy = ByteBuffer.allocate(content.remaining()).put(content).flip();
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        synchronized (lock) {
+            pending++;
+        }
+        try {
+            writers.execute(() -> {
+                boolean written = false;
+                IOException error = null;
+                try {
+                    written = action.write(copy);
+                } catch (IOException e) {
+                    error = e;
+                } catch (RuntimeException e) {
+                    error = new IOException(e);
+                }
+                complete(done, written, error);
+            });
+        } catch (RejectedExecutionException e) {
+            complete(done, false, new IOException("Запись остановлена.", e));
+        }
+        return done;
+    }
+
+    /**
+     * Завершает запись до уменьшения счетчика, чтобы к возврату из {@link #await()} зависимые действия
+     * уже были выполнены.
+     */
+    private void complete(CompletableFuture<Boolean> done, boolean written, IOException error) {
+        try {
+            if (error == null) {
+                done.complete(written);
+            } else {
+                done.completeExceptionally(error);
+            }
+        } finally {
+            synchronized (lock) {
+                if (error != null && firstError == null) {
+                    firstError = error;
+                }
+                if (--pending == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Ждет, пока будут записаны все поставленные в очередь реализации.
+     *
+     * @return первая ошибка записи с прошлого вызова или {@code null}
+     */
+    IOException await() throws InterruptedException {
+        synchronized (lock) {
+            while (pending > 0) {
+                lock.wait();
+            }
+            IOException error = firstError;
+            firstError = null;
+            return error;
+        }
+    }
+
+    /**
+     * Дожидается всех поставленных записей и останавливает потоки записи. Прерывание не останавливает
+     * ожидание, чтобы после возврата ни одна запись не шла в фоне; флаг прерывания восстанавливается.
+     * Ошибки записи к этому моменту уже переданы в результаты {@link #submit(ByteBuffer, WriteAction)}.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        writers.shutdown();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
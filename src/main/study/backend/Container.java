@@ -0,0 +1,10 @@
+package study.backend;
+
+import java.util.List;
+import java.util.Map;
+
+public interface Container<T extends Number> extends Iterable<T> {
+    <U extends Comparable<U>> List<U> map(T value, Map<? super T, U> mapping);
+
+    T[] toArray();
+}
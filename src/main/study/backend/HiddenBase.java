@@ -0,0 +1,7 @@
+package study.backend;
+
+abstract class HiddenBase {
+    protected abstract int size();
+
+    public abstract HiddenBase copy();
+}
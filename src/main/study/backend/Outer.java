@@ -0,0 +1,11 @@
+package study.backend;
+
+public class Outer {
+    public interface Nested {
+        Inner inner(Nested other);
+    }
+
+    public static abstract class Inner implements Nested {
+        protected abstract Outer outer();
+    }
+}
@@ -0,0 +1,13 @@
+package study.backend;
+
+import java.io.IOException;
+
+public abstract class Resource {
+    protected Resource(String name, int attempts) throws IOException, InterruptedException {
+    }
+
+    protected Resource(short id) {
+    }
+
+    public abstract void close() throws IOException;
+}
@@ -0,0 +1,5 @@
+package study.backend;
+
+public abstract class VisibleChild extends HiddenBase {
+    public abstract String name();
+}
@@ -0,0 +1,7 @@
+package study.compile;
+
+public abstract class HiddenAbstractMethod {
+    abstract void run();
+
+    public abstract String name();
+}
@@ -0,0 +1,5 @@
+package study.resolution;
+
+public abstract class AbstractGreeter {
+    public abstract String greet();
+}
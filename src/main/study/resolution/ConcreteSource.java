@@ -0,0 +1,7 @@
+package study.resolution;
+
+public abstract class ConcreteSource {
+    public String value() {
+        return "";
+    }
+}
@@ -0,0 +1,7 @@
+package study.resolution;
+
+public interface Greeter {
+    default String greet() {
+        return "hello";
+    }
+}
@@ -0,0 +1,5 @@
+package study.resolution;
+
+public abstract class InheritedImplementation extends ConcreteSource implements NarrowedSource {
+    public abstract int size();
+}
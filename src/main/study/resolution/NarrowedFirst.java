@@ -0,0 +1,4 @@
+package study.resolution;
+
+public abstract class NarrowedFirst implements NarrowedSource, Source {
+}
@@ -0,0 +1,5 @@
+package study.resolution;
+
+public interface NarrowedSource extends Source {
+    String value();
+}
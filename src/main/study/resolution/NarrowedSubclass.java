@@ -0,0 +1,4 @@
+package study.resolution;
+
+public abstract class NarrowedSubclass extends AbstractSource implements NarrowedSource {
+}
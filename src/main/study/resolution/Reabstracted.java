@@ -0,0 +1,4 @@
+package study.resolution;
+
+public abstract class Reabstracted extends AbstractGreeter implements Greeter {
+}
@@ -0,0 +1,7 @@
+package study.resolution;
+
+import java.io.IOException;
+
+public interface Source {
+    Object value() throws IOException;
+}
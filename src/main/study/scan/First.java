@@ -0,0 +1,7 @@
+package study.scan;
+
+public class First {
+    public static abstract class Builder {
+        public abstract First build();
+    }
+}
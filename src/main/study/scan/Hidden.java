@@ -0,0 +1,5 @@
+package study.scan;
+
+abstract class Hidden {
+    public abstract void run();
+}
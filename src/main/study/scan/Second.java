@@ -0,0 +1,9 @@
+package study.scan;
+
+public interface Second {
+    interface Builder {
+        Second build();
+    }
+
+    Builder toBuilder();
+}
@@ -24,10 +24,11 @@ import javax.tools.ToolProvider;
 import org.fest.assertions.api.BooleanAssert;
 import org.junit.jupiter.api.Test;
 import ru.hse.java.implementor.Implementor;
+import ru.hse.java.implementor.ImplementorResult;
 
 public abstract class AbstractImplementorTest {
 
-    private static final String TESTS_DIRECTORY = "./build/classes/java/main/";
+    protected static final String TESTS_DIRECTORY = "./build/classes/java/main/";
     protected static final String OUTPUT_DIRECTORY = "./tmp/java";
 
     private Class<?> implementorClass;
@@ -84,6 +85,25 @@ public abstract class AbstractImplementorTest {
         compileAndCheckAbstractClassImplementation(className, implClassName);
     }
 
+    protected void checkBatchImplementationFromFolder(String... classNames) throws Exception {
+        Implementor implementor = newImplementor();
+        checkBatchResults(implementor.implementAllFromDirectory(TESTS_DIRECTORY, Arrays.asList(classNames)), classNames);
+    }
+
+    protected void checkBatchImplementationFromStandardLibrary(String... classNames) throws Exception {
+        Implementor implementor = newImplementor();
+        checkBatchResults(implementor.implementAllFromStandardLibrary(Arrays.asList(classNames)), classNames);
+    }
+
+    private void checkBatchResults(List<ImplementorResult> results, String[] classNames) throws IOException {
+        assertThat(results).hasSize(classNames.length);
+        for (int i = 0; i < classNames.length; i++) {
+            ImplementorResult result = results.get(i);
+            assertThat(result.getClassName()).isEqualTo(classNames[i]);
+            assertThat(result.isSuccess()).as(result.toString()).isTrue();
+            compileAndLoadClass(result.getImplClassName());
+        }
+    }
 
     protected void compileAndCheckInterfaceImplementation(String className, String implClassName) throws IOException {
         final Class<?> outputClass = compileAndLoadClass(implClassName);
@@ -100,7 +120,7 @@ public abstract class AbstractImplementorTest {
     }
 
 
-    private Class<?> compileAndLoadClass(String implClassName) throws IOException {
+    protected Class<?> compileAndLoadClass(String implClassName) throws IOException {
         final String outputAbsolutePath = getAbsolutePath(implClassName);
         tryToCompile(outputAbsolutePath);
         final Class<?> outputClass = loadClassFromTestDirectory(implClassName);
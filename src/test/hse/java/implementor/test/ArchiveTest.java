@@ -0,0 +1,103 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.hse.java.implementor.OutputFormat;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * With an output archive every implementation becomes one entry laid out by package, and nothing else
+ * is written to the output directory.
+ */
+public class ArchiveTest extends AbstractImplementorTest {
+    private static final Path WORK_DIRECTORY = Paths.get("./tmp/archive");
+
+    public ArchiveTest() throws Exception {
+        super();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        deleteFolderContent(WORK_DIRECTORY.toFile(), false);
+    }
+
+    @ParameterizedTest
+    @EnumSource(OutputFormat.class)
+    public void archiveHoldsImplementations(OutputFormat format) throws Exception {
+        Path directory = WORK_DIRECTORY.resolve(format.name());
+        Path output = directory.resolve("output");
+        Path archive = directory.resolve("implementations.jar");
+        String extension = format == OutputFormat.CLASS ? ".class" : ".java";
+
+        try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+            implementor.setOutputFormat(format).setOutputArchive(archive.toString());
+            assertThat(implementor.implementFromStandardLibrary("java.lang.Comparable")).isEqualTo("ComparableImpl");
+            assertThat(implementor.implementFromDirectory(TESTS_DIRECTORY, "study.MyInterface"))
+                    .isEqualTo("study.MyInterfaceImpl");
+            assertThat(implementor.implementFromDirectory(TESTS_DIRECTORY, "study.inherit.ClassB"))
+                    .isEqualTo("study.inherit.ClassBImpl");
+            // The same implementation again must not add a second entry.
+            implementor.implementFromDirectory(TESTS_DIRECTORY, "study.MyInterface");
+        }
+        assertThat(Files.exists(output)).isFalse();
+
+        List<String> entries = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                entries.add(entry.getName());
+            }
+            assertThat(entries).hasSize(3);
+            assertThat(entries).containsOnly("ComparableImpl" + extension, "study/MyInterfaceImpl" + extension,
+                    "study/inherit/ClassBImpl" + extension);
+
+            if (format == OutputFormat.SOURCE) {
+                // Extract the sources and compile them next to the archive.
+                Path sources = directory.resolve("sources");
+                List<String> args = new ArrayList<>(List.of("-nowarn", "-d", sources.toString(), "-classpath",
+                        System.getProperty("java.class.path") + File.pathSeparator + TESTS_DIRECTORY));
+                for (String name : entries) {
+                    Path source = sources.resolve(name);
+                    Files.createDirectories(source.getParent());
+                    try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+                        Files.copy(in, source);
+                    }
+                    args.add(source.toString());
+                }
+                JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+                assertThat(compiler.run(null, null, null, args.toArray(new String[0]))).isEqualTo(0);
+                checkLoads(sources.toUri().toURL());
+            } else {
+                checkLoads(archive.toUri().toURL());
+            }
+        }
+    }
+
+    private static void checkLoads(URL classes) throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes}, ArchiveTest.class.getClassLoader())) {
+            for (String implClassName : List.of("ComparableImpl", "study.MyInterfaceImpl", "study.inherit.ClassBImpl")) {
+                Class<?> implClass = loader.loadClass(implClassName);
+                assertThat(implClass.getClassLoader()).isEqualTo(loader);
+                assertThat(Modifier.isAbstract(implClass.getModifiers())).isFalse();
+                implClass.getDeclaredConstructor().newInstance();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.hse.java.implementor.ImplementorResult;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Shares one SimpleImplementor between threads.
+ */
+public class ConcurrentImplementorTest extends AbstractImplementorTest {
+    private static final Path WORK_DIRECTORY = Paths.get("./tmp/concurrent");
+    private static final int THREADS = 32;
+    private static final List<String> LIBRARY_CLASSES = Arrays.asList(
+            "java.util.Comparator", "java.util.AbstractList", "java.lang.Iterable");
+    private static final List<String> FOLDER_CLASSES = Arrays.asList(
+            "study.MyInterface", "study.inherit.ClassB", "study.AbstractClass");
+
+    public ConcurrentImplementorTest() throws Exception {
+        super();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        deleteFolderContent(new File(OUTPUT_DIRECTORY), false);
+        deleteFolderContent(WORK_DIRECTORY.toFile(), false);
+    }
+
+    @Test
+    public void moreDirectoriesThanCachedLoaders() throws Exception {
+        // The implementor caches 16 loaders; evicting one must not break threads still loading from it.
+        // More threads than cached loaders and a wide hierarchy make evictions of busy loaders likely.
+        Path input = WORK_DIRECTORY.resolve("hierarchy");
+        String className = new SyntheticHierarchy(6, 6, 0.5, 16).generate(input);
+        List<String> directories = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Path directory = WORK_DIRECTORY.resolve("loaders-" + i);
+            copyClasses(input, directory);
+            directories.add(directory.toString());
+        }
+        List<String> tasks = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            tasks.addAll(directories);
+        }
+        Collections.shuffle(tasks);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try (SimpleImplementor implementor = new SimpleImplementor(OUTPUT_DIRECTORY)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (String directory : tasks) {
+                results.add(executor.submit(() -> implementor.implementFromDirectory(directory, className)));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo(className + "Impl");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * Single and batch calls on the same and overlapping targets race on the same files and,
+     * in incremental mode, on the manifest. The second implementor starts from the files and the manifest
+     * left by the first one.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void sameAndOverlappingTargets(boolean incremental) throws Exception {
+        Path output = WORK_DIRECTORY.resolve("overlapping-" + incremental);
+        for (int run = 0; run < 2; run++) {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+                implementor.setIncremental(incremental);
+                List<Callable<Void>> calls = overlappingCalls(implementor);
+                Collections.shuffle(calls);
+                for (Future<Void> result : executor.invokeAll(calls)) {
+                    result.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        try (Stream<Path> files = Files.walk(output)) {
+            List<String> leftovers = files.map(Path::toString).filter(name -> name.endsWith(".tmp")).
+                    collect(Collectors.toList());
+            assertThat(leftovers).isEmpty();
+        }
+        Path manifest = output.resolve(".implementor-manifest");
+        assertThat(Files.exists(manifest)).isEqualTo(incremental);
+        if (incremental && FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            // The manifest is created like the implementations, not as an owner-only temporary file.
+            assertThat(Files.getPosixFilePermissions(manifest)).
+                    isEqualTo(Files.getPosixFilePermissions(output.resolve("ComparatorImpl.java")));
+        }
+        compileAll(output);
+    }
+
+    private static List<Callable<Void>> overlappingCalls(SimpleImplementor implementor) {
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int round = 0; round < 8; round++) {
+            for (int i = 0; i < LIBRARY_CLASSES.size(); i++) {
+                String libraryClass = LIBRARY_CLASSES.get(i);
+                String folderClass = FOLDER_CLASSES.get(i);
+                List<String> libraryBatch = Arrays.asList(libraryClass, LIBRARY_CLASSES.get((i + 1) % 3));
+                List<String> folderBatch = Arrays.asList(folderClass, FOLDER_CLASSES.get((i + 1) % 3));
+                calls.add(() -> {
+                    implementor.implementFromStandardLibrary(libraryClass);
+                    return null;
+                });
+                calls.add(() -> {
+                    implementor.implementFromDirectory(TESTS_DIRECTORY, folderClass);
+                    return null;
+                });
+                calls.add(() -> {
+                    checkSuccess(implementor.implementAllFromStandardLibrary(libraryBatch));
+                    return null;
+                });
+                calls.add(() -> {
+                    checkSuccess(implementor.implementAllFromDirectory(TESTS_DIRECTORY, folderBatch));
+                    return null;
+                });
+            }
+        }
+        return calls;
+    }
+
+    private static void checkSuccess(List<ImplementorResult> results) {
+        for (ImplementorResult result : results) {
+            assertThat(result.isSuccess()).as(result.toString()).isTrue();
+        }
+    }
+
+    /**
+     * Compiles every generated source at once, so a torn or mixed file fails the test.
+     */
+    private static void compileAll(Path output) throws IOException {
+        List<String> sources;
+        try (Stream<Path> files = Files.walk(output)) {
+            sources = files.map(Path::toString).filter(name -> name.endsWith(".java")).collect(Collectors.toList());
+        }
+        assertThat(sources).hasSize(LIBRARY_CLASSES.size() + FOLDER_CLASSES.size());
+
+        List<String> args = new ArrayList<>(Arrays.asList("-nowarn",
+                "-classpath", System.getProperty("java.class.path") + File.pathSeparator + TESTS_DIRECTORY,
+                "-d", output.resolve("classes").toString()));
+        args.addAll(sources);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int exitCode = compiler.run(null, null, null, args.toArray(new String[0]));
+        assertThat(exitCode).as("Can't compile " + sources).isEqualTo(0);
+    }
+
+    private static void copyClasses(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path target = to.resolve(from.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(file, target);
+                }
+            }
+        }
+    }
+}
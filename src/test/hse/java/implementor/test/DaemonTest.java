@@ -0,0 +1,101 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.hse.java.implementor.ImplementorDaemon;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Feeds ImplementorDaemon.serve a fixed input and checks the responses.
+ */
+public class DaemonTest extends AbstractImplementorTest {
+
+    public DaemonTest() throws Exception {
+        super();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        deleteFolderContent(new File(OUTPUT_DIRECTORY), false);
+    }
+
+    @Test
+    public void respondsToEachRequestOnOneLine() throws Exception {
+        String input = String.join("\n",
+                "1\tstd\tjava.lang.Comparable",
+                "2\tdir\t" + TESTS_DIRECTORY + "\tstudy.MyInterface",
+                "",
+                "3\tstd\tjava.lang.NoSuchType",
+                "4\tstd",
+                "5\tsend\u001b[31m\\x",
+                "6\tdir\t" + TESTS_DIRECTORY + "\tstudy.SomeInterface") + "\n";
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (SimpleImplementor implementor = new SimpleImplementor(OUTPUT_DIRECTORY)) {
+            new ImplementorDaemon(implementor, 4).serve(
+                    new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        }
+
+        // Responses come in order of completion, so they are matched by id.
+        Map<String, String[]> responses = new HashMap<>();
+        for (String line : new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            String[] fields = line.split("\t", -1);
+            assertThat(fields.length).as(line).isEqualTo(3);
+            for (char c : line.toCharArray()) {
+                assertThat(c == '\t' || !Character.isISOControl(c)).as(line).isTrue();
+            }
+            assertThat(responses.put(fields[0], fields)).as(line).isNull();
+        }
+        assertThat(responses.keySet()).containsOnly("1", "2", "3", "4", "5", "6");
+
+        checkResponse(responses.get("1"), "ok", "ComparableImpl");
+        checkResponse(responses.get("2"), "ok", "study.MyInterfaceImpl");
+        checkResponse(responses.get("6"), "ok", "study.SomeInterfaceImpl");
+        assertThat(responses.get("3")[1]).isEqualTo("error");
+        assertThat(responses.get("4")[1]).isEqualTo("error");
+        assertThat(responses.get("5")[1]).isEqualTo("error");
+        assertThat(responses.get("5")[2]).contains(" send\\u001b[31m\\\\x.");
+        compileAndCheckInterfaceImplementation("study.MyInterface", "study.MyInterfaceImpl");
+    }
+
+    @Test
+    public void stopsWhenOutputIsClosed() throws Exception {
+        int requests = 2000;
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < requests; i++) {
+            input.append(i).append("\tstd\tjava.lang.Comparable\n");
+        }
+        AtomicInteger implemented = new AtomicInteger();
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("closed");
+            }
+        };
+
+        try (SimpleImplementor implementor = new SimpleImplementor(OUTPUT_DIRECTORY)) {
+            implementor.setMetricsListener(metrics -> implemented.incrementAndGet());
+            ImplementorDaemon daemon = new ImplementorDaemon(implementor, 1);
+            Assertions.assertThrows(IOException.class, () -> daemon.serve(
+                    new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), closed));
+        }
+        assertThat(implemented.get()).isLessThan(requests / 10);
+    }
+
+    private static void checkResponse(String[] response, String status, String value) {
+        assertThat(response[1]).isEqualTo(status);
+        assertThat(response[2]).isEqualTo(value);
+    }
+}
@@ -0,0 +1,355 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.hse.java.implementor.ImplementationMode;
+import ru.hse.java.implementor.OutputSink;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Behaviour of the generated classes in each implementation mode, checked on classes defined
+ * by implementClass. Counting tests reset the counters first: implementClass caches the class.
+ */
+public class ImplementationModeTest {
+    private static final String MODES_DIRECTORY = "./tmp/modes";
+
+    public interface Service {
+        int add(int a, int b);
+
+        long sum(long[] values);
+
+        String greet(String name) throws IOException;
+
+        void clear();
+
+        double scale(double value, float factor);
+
+        boolean matches(char c, byte b, short s);
+
+        List<String> names();
+    }
+
+    public abstract static class Task {
+        private final String name;
+
+        protected Task(String name, int priority) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public abstract int run(String input) throws InterruptedException;
+    }
+
+    /**
+     * Records each call it receives and returns values a stub would never return.
+     */
+    static final class RecordingService implements Service {
+        private final List<String> calls;
+
+        RecordingService(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Override
+        public int add(int a, int b) {
+            calls.add("add");
+            return a + b;
+        }
+
+        @Override
+        public long sum(long[] values) {
+            calls.add("sum");
+            return Arrays.stream(values).sum();
+        }
+
+        @Override
+        public String greet(String name) throws IOException {
+            calls.add("greet");
+            if (name == null) {
+                throw new IOException("no name");
+            }
+            return "hello " + name;
+        }
+
+        @Override
+        public void clear() {
+            calls.add("clear");
+        }
+
+        @Override
+        public double scale(double value, float factor) {
+            calls.add("scale");
+            return value * factor;
+        }
+
+        @Override
+        public boolean matches(char c, byte b, short s) {
+            calls.add("matches");
+            return c == b && b == s;
+        }
+
+        @Override
+        public List<String> names() {
+            calls.add("names");
+            return Collections.singletonList("delegate");
+        }
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        AbstractImplementorTest.deleteFolderContent(new File(MODES_DIRECTORY), false);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ImplementationMode.class)
+    public void implementClassReturnsInstantiableSubtype(ImplementationMode mode) throws Exception {
+        try (SimpleImplementor implementor = new SimpleImplementor(MODES_DIRECTORY)) {
+            implementor.setImplementationMode(mode);
+            checkInstantiable(implementor, Service.class, mode, new RecordingService(new ArrayList<>()));
+            checkInstantiable(implementor, Task.class, mode, new Task("delegate", 1) {
+                @Override
+                public int run(String input) {
+                    return input.length();
+                }
+            });
+        }
+    }
+
+    private static <T> void checkInstantiable(SimpleImplementor implementor, Class<T> type, ImplementationMode mode,
+                                              T delegate) throws Exception {
+        Class<? extends T> implClass = implementor.implementClass(type);
+        assertThat(type.isAssignableFrom(implClass)).as(implClass.getName()).isTrue();
+        assertThat(Modifier.isAbstract(implClass.getModifiers())).as(implClass.getName()).isFalse();
+        assertThat(implementor.implementClass(type) == implClass).as("cached " + implClass.getName()).isTrue();
+
+        T instance = mode == ImplementationMode.FORWARDING ?
+                implClass.getConstructor(type).newInstance(delegate) :
+                implClass.getDeclaredConstructor().newInstance();
+        assertThat(type.isInstance(instance)).as(implClass.getName()).isTrue();
+    }
+
+    @Test
+    public void forwardingDelegatesEveryCall() throws Exception {
+        List<String> calls = new ArrayList<>();
+        Service service = forwarding(false).getConstructor(Service.class).newInstance(new RecordingService(calls));
+
+        assertThat(service.add(2, 3)).isEqualTo(5);
+        assertThat(service.sum(new long[]{1, 2, 3})).isEqualTo(6L);
+        assertThat(service.greet("world")).isEqualTo("hello world");
+        service.clear();
+        assertThat(service.scale(1.5, 2f)).isEqualTo(3.0);
+        assertThat(service.matches('a', (byte) 'a', (short) 'a')).isTrue();
+        assertThat(service.names()).containsOnly("delegate");
+        assertThat(calls).isEqualTo(Arrays.asList("add", "sum", "greet", "clear", "scale", "matches", "names"));
+    }
+
+    @Test
+    public void forwardingPropagatesExceptions() throws Exception {
+        Service service = forwarding(false).getConstructor(Service.class).
+                newInstance(new RecordingService(new ArrayList<>()));
+        IOException e = Assertions.assertThrows(IOException.class, () -> service.greet(null));
+        assertThat(e.getMessage()).isEqualTo("no name");
+    }
+
+    @Test
+    public void forwardingRejectsNullDelegate() throws Exception {
+        InvocationTargetException e = Assertions.assertThrows(InvocationTargetException.class,
+                () -> forwarding(false).getConstructor(Service.class).newInstance((Service) null));
+        assertThat(e.getCause() instanceof NullPointerException).isTrue();
+    }
+
+    @Test
+    public void forwardingWithHooksDeclaresOverridableHooks() throws Exception {
+        Class<? extends Service> implClass = forwarding(true);
+        for (String hook : Arrays.asList("beforeCall", "afterCall")) {
+            Method m = implClass.getDeclaredMethod(hook, String.class);
+            assertThat(Modifier.isProtected(m.getModifiers())).as(hook).isTrue();
+            assertThat(Modifier.isFinal(m.getModifiers())).as(hook).isFalse();
+        }
+        List<String> calls = new ArrayList<>();
+        Service service = implClass.getConstructor(Service.class).newInstance(new RecordingService(calls));
+        assertThat(service.add(2, 3)).isEqualTo(5);
+        assertThat(calls).isEqualTo(Collections.singletonList("add"));
+    }
+
+    /*
+     * A subclass that overrides the hooks has to be compiled against the implementation,
+     * so the implementation is rendered as source and compiled together with it.
+     */
+    @Test
+    public void hooksSurroundEveryCall() throws Exception {
+        Class<?> hooked = compileHookedService();
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        Service service = (Service) hooked.getConstructor(Service.class, List.class).
+                newInstance(new RecordingService(events), events);
+
+        assertThat(service.add(2, 3)).isEqualTo(5);
+        service.clear();
+        assertThat(service.names()).containsOnly("delegate");
+        assertThat(events).isEqualTo(Arrays.asList(
+                "before add(II)", "add", "after add(II)",
+                "before clear()", "clear", "after clear()",
+                "before names()", "names", "after names()"));
+    }
+
+    @Test
+    public void afterHookSkippedOnException() throws Exception {
+        Class<?> hooked = compileHookedService();
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        Service service = (Service) hooked.getConstructor(Service.class, List.class).
+                newInstance(new RecordingService(events), events);
+
+        Assertions.assertThrows(IOException.class, () -> service.greet(null));
+        assertThat(events).isEqualTo(Arrays.asList("before greet(Ljava/lang/String;)", "greet"));
+    }
+
+    @Test
+    public void countingCountsEachMethod() throws Exception {
+        Class<? extends Service> implClass = counting();
+        Service service = implClass.getDeclaredConstructor().newInstance();
+        service.add(1, 2);
+        service.add(3, 4);
+        service.clear();
+        assertThat(service.names()).isNull();
+
+        Map<String, Long> counts = callCounts(implClass);
+        assertThat(counts).hasSize(7);
+        assertThat(counts.get("add(II)")).isEqualTo(2L);
+        assertThat(counts.get("clear()")).isEqualTo(1L);
+        assertThat(counts.get("names()")).isEqualTo(1L);
+        assertThat(counts.get("sum([J)")).isEqualTo(0L);
+        assertThat(counts.get("greet(Ljava/lang/String;)")).isEqualTo(0L);
+
+        implClass.getMethod("resetCallCounts").invoke(null);
+        for (Map.Entry<String, Long> count : callCounts(implClass).entrySet()) {
+            assertThat(count.getValue()).as(count.getKey()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void countingCountsAcrossThreads() throws Exception {
+        final int threads = 8;
+        final int calls = 100_000;
+        Class<? extends Service> implClass = counting();
+        Service service = implClass.getDeclaredConstructor().newInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean even = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < calls; i++) {
+                        service.add(i, i);
+                        if (even) {
+                            service.matches('a', (byte) 0, (short) 0);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, Long> counts = callCounts(implClass);
+        assertThat(counts.get("add(II)")).isEqualTo((long) threads * calls);
+        assertThat(counts.get("matches(CBS)")).isEqualTo((long) threads / 2 * calls);
+        assertThat(counts.get("clear()")).isEqualTo(0L);
+    }
+
+    private static Class<? extends Service> counting() throws Exception {
+        try (SimpleImplementor implementor = new SimpleImplementor(MODES_DIRECTORY)) {
+            implementor.setImplementationMode(ImplementationMode.COUNTING);
+            Class<? extends Service> implClass = implementor.implementClass(Service.class);
+            // implementClass caches the class, so its counters are shared with other tests
+            implClass.getMethod("resetCallCounts").invoke(null);
+            return implClass;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> callCounts(Class<?> implClass) throws Exception {
+        return (Map<String, Long>) implClass.getMethod("callCounts").invoke(null);
+    }
+
+    private static Class<? extends Service> forwarding(boolean hooks) throws Exception {
+        try (SimpleImplementor implementor = new SimpleImplementor(MODES_DIRECTORY)) {
+            implementor.setImplementationMode(ImplementationMode.FORWARDING).setForwardingHooks(hooks);
+            Class<? extends Service> implClass = implementor.implementClass(Service.class);
+            assertThat(implClass.getConstructors()).hasSize(1);
+            return implClass;
+        }
+    }
+
+    private static Class<?> compileHookedService() throws Exception {
+        Path directory = Files.createDirectories(Path.of(MODES_DIRECTORY, "hooks", "hse", "java", "implementor", "test"));
+        StringBuilder source = new StringBuilder();
+        try (SimpleImplementor implementor = new SimpleImplementor(MODES_DIRECTORY)) {
+            implementor.setImplementationMode(ImplementationMode.FORWARDING).setForwardingHooks(true);
+            implementor.render(Service.class, OutputSink.of(source));
+        }
+        Path impl = Files.writeString(directory.resolve("ServiceImpl.java"), source, StandardCharsets.UTF_8);
+        Path hooked = Files.writeString(directory.resolve("HookedService.java"), String.join("\n",
+                "package hse.java.implementor.test;",
+                "",
+                "public class HookedService extends ServiceImpl {",
+                "    private final java.util.List<String> events;",
+                "",
+                "    public HookedService(ImplementationModeTest.Service delegate, java.util.List<String> events) {",
+                "        super(delegate);",
+                "        this.events = events;",
+                "    }",
+                "",
+                "    @Override",
+                "    protected void beforeCall(String method) {",
+                "        events.add(\"before \" + method);",
+                "    }",
+                "",
+                "    @Override",
+                "    protected void afterCall(String method) {",
+                "        events.add(\"after \" + method);",
+                "    }",
+                "}",
+                ""), StandardCharsets.UTF_8);
+
+        File output = new File(MODES_DIRECTORY, "hooks");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int exitCode = compiler.run(null, null, null, "-nowarn", "-encoding", "UTF-8",
+                "-classpath", System.getProperty("java.class.path"), "-d", output.getPath(),
+                impl.toString(), hooked.toString());
+        assertThat(exitCode).as("Can't compile " + hooked).isEqualTo(0);
+        URLClassLoader loader = new URLClassLoader(new URL[]{output.toURI().toURL()},
+                ImplementationModeTest.class.getClassLoader());
+        return loader.loadClass("hse.java.implementor.test.HookedService");
+    }
+}
@@ -123,6 +123,22 @@ public class ImplementorTest extends AbstractImplementorTest {
         );
     }
 
+    @Test
+    public void implementAllFromStandardLibrary() {
+        Assertions.assertTimeout(
+                Duration.ofSeconds(10),
+                () -> checkBatchImplementationFromStandardLibrary(
+                        "java.lang.Comparable", "java.lang.Iterable", "java.util.AbstractSet", "java.util.AbstractQueue")
+        );
+    }
 
+    @Test
+    public void implementAllFromFolder() {
+        Assertions.assertTimeout(
+                Duration.ofSeconds(10),
+                () -> checkBatchImplementationFromFolder(
+                        "study.MyInterface", "study.SomeInterface", "study.inherit.ClassB", "study.AbstractClass")
+        );
+    }
 
 }
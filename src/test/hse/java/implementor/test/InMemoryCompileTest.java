@@ -0,0 +1,67 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import ru.hse.java.implementor.CompiledImplementation;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Implementations compiled in memory by compileAll* are returned as bytes, nothing is written to disk.
+ */
+public class InMemoryCompileTest extends AbstractImplementorTest {
+
+    public InMemoryCompileTest() throws Exception {
+        super();
+    }
+
+    @Test
+    public void badUnitDoesNotFailBatch() throws Exception {
+        // HiddenAbstractMethodImpl does not compile: the package-private abstract method is not implemented.
+        List<String> classNames = Arrays.asList(
+                "study.MyInterface",
+                "study.compile.HiddenAbstractMethod",
+                "study.AbstractClass",
+                "study.Missing",
+                "study.inherit.ClassB");
+        List<CompiledImplementation> results;
+        try (SimpleImplementor implementor = new SimpleImplementor(OUTPUT_DIRECTORY)) {
+            results = implementor.compileAllFromDirectory(TESTS_DIRECTORY, classNames);
+        }
+
+        assertThat(results).hasSize(classNames.size());
+        for (int i = 0; i < classNames.size(); i++) {
+            assertThat(results.get(i).getClassName()).isEqualTo(classNames.get(i));
+        }
+
+        CompiledImplementation bad = results.get(1);
+        assertThat(bad.isSuccess()).isFalse();
+        assertThat(bad.getClassBytes()).isNull();
+        assertThat(bad.getDiagnostics().toString()).contains("HiddenAbstractMethodImpl");
+
+        CompiledImplementation missing = results.get(3);
+        assertThat(missing.isSuccess()).isFalse();
+        assertThat(missing.getDiagnostics()).hasSize(1);
+
+        for (int i : new int[]{0, 2, 4}) {
+            CompiledImplementation result = results.get(i);
+            assertThat(result.isSuccess()).as(result.toString()).isTrue();
+            assertThat(result.getImplClassName()).isEqualTo(classNames.get(i) + "Impl");
+            Class<?> implClass = new BytesClassLoader().define(result.getImplClassName(), result.getClassBytes());
+            assertThat(Modifier.isAbstract(implClass.getModifiers())).isFalse();
+        }
+    }
+
+    private static final class BytesClassLoader extends ClassLoader {
+        BytesClassLoader() {
+            super(InMemoryCompileTest.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.hse.java.implementor.ImplementMetrics;
+import ru.hse.java.implementor.MetadataBackend;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * With incremental generation an implementation is regenerated only when the class or one of its
+ * supertypes changes.
+ */
+public class IncrementalTest {
+    private static final Path WORK_DIRECTORY = Paths.get("./tmp/incremental");
+    private static final String CLASS_NAME = "incremental.Child";
+
+    @AfterAll
+    static void cleanUp() {
+        AbstractImplementorTest.deleteFolderContent(WORK_DIRECTORY.toFile(), false);
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void changedSupertypeForcesRegeneration(MetadataBackend backend) throws Exception {
+        Path input = WORK_DIRECTORY.resolve(backend.name()).resolve("input");
+        Path output = WORK_DIRECTORY.resolve(backend.name()).resolve("output");
+        Path base = write(input, "Base", "public interface Base { String a(); }");
+        compile(input, base, write(input, "Child", "public abstract class Child implements Base { }"));
+
+        assertThat(implement(backend, input, output).isUpToDate()).isFalse();
+        Path target = output.resolve("incremental").resolve("ChildImpl.java");
+        String first = read(target);
+        assertThat(first).contains("a()");
+
+        // Nothing changed: the implementation is neither regenerated nor rewritten.
+        long modified = Files.getLastModifiedTime(target).toMillis();
+        assertThat(implement(backend, input, output).isUpToDate()).isTrue();
+        assertThat(Files.getLastModifiedTime(target).toMillis()).isEqualTo(modified);
+
+        // Only the supertype is recompiled, the class file of Child stays the same.
+        byte[] child = Files.readAllBytes(input.resolve("incremental").resolve("Child.class"));
+        compile(input, write(input, "Base", "public interface Base { String a(); int b(); }"));
+        assertThat(Files.readAllBytes(input.resolve("incremental").resolve("Child.class"))).isEqualTo(child);
+
+        assertThat(implement(backend, input, output).isUpToDate()).isFalse();
+        assertThat(read(target)).contains("b()");
+        assertThat(implement(backend, input, output).isUpToDate()).isTrue();
+    }
+
+    private static ImplementMetrics implement(MetadataBackend backend, Path input, Path output) throws Exception {
+        List<ImplementMetrics> metrics = new ArrayList<>();
+        try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+            implementor.setMetadataBackend(backend).setIncremental(true).setMetricsListener(metrics::add);
+            assertThat(implementor.implementFromDirectory(input.toString(), CLASS_NAME)).isEqualTo(CLASS_NAME + "Impl");
+        }
+        assertThat(metrics).hasSize(1);
+        return metrics.get(0);
+    }
+
+    private static Path write(Path input, String name, String body) throws IOException {
+        Path source = input.resolve("src").resolve("incremental").resolve(name + ".java");
+        Files.createDirectories(source.getParent());
+        Files.write(source, ("package incremental;\n" + body + "\n").getBytes(StandardCharsets.UTF_8));
+        return source;
+    }
+
+    private static void compile(Path input, Path... sources) {
+        List<String> args = new ArrayList<>(List.of("-nowarn", "-classpath", input.toString(), "-d", input.toString()));
+        for (Path source : sources) {
+            args.add(source.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertThat(compiler.run(null, null, null, args.toArray(new String[0]))).isEqualTo(0);
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.hse.java.implementor.MetadataBackend;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Reading class files must produce exactly the same implementation as reflection does.
+ */
+public class MetadataBackendTest extends AbstractImplementorTest {
+    private static final String REFLECTION_OUTPUT_DIRECTORY = "./tmp/reflection";
+
+    public MetadataBackendTest() throws Exception {
+        super();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        deleteFolderContent(new File(OUTPUT_DIRECTORY), false);
+        deleteFolderContent(new File(REFLECTION_OUTPUT_DIRECTORY), false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"java.lang.Comparable", "java.lang.Iterable", "java.util.Map$Entry"})
+    public void interfaceFromStandardLibrary(String className) throws Exception {
+        String implClassName = checkSameOutput(null, className);
+        compileAndCheckInterfaceImplementation(className.replace('$', '.'), implClassName);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"java.util.AbstractSet", "java.util.AbstractQueue", "java.io.Reader"})
+    public void abstractClassFromStandardLibrary(String className) throws Exception {
+        String implClassName = checkSameOutput(null, className);
+        compileAndCheckAbstractClassImplementation(className, implClassName);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "study.MyInterface",
+            "study.SomeInterface",
+            "NoPackageInterface",
+            "ru.hse.java.implementor.Implementor",
+            "study.backend.Container",
+            "study.backend.Outer$Nested"
+    })
+    public void interfaceFromFolder(String className) throws Exception {
+        String implClassName = checkSameOutput(TESTS_DIRECTORY, className);
+        compileAndCheckInterfaceImplementation(className.replace('$', '.'), implClassName);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "study.inherit.ClassB",
+            "study.MyClass",
+            "study.AbstractClass",
+            "study.backend.Outer$Inner",
+            "study.backend.VisibleChild",
+            "study.backend.Resource"
+    })
+    public void abstractClassFromFolder(String className) throws Exception {
+        String implClassName = checkSameOutput(TESTS_DIRECTORY, className);
+        compileAndCheckAbstractClassImplementation(className.replace('$', '.'), implClassName);
+    }
+
+    /**
+     * Implements the class with both backends, leaving the class file backend's output in OUTPUT_DIRECTORY.
+     *
+     * @param directory directory to load the class from, {@code null} for the standard library
+     */
+    private static String checkSameOutput(String directory, String className) throws Exception {
+        String expected = implement(MetadataBackend.REFLECTION, REFLECTION_OUTPUT_DIRECTORY, directory, className);
+        String actual = implement(MetadataBackend.CLASS_FILE, OUTPUT_DIRECTORY, directory, className);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(read(OUTPUT_DIRECTORY, actual)).as(className).isEqualTo(read(REFLECTION_OUTPUT_DIRECTORY, expected));
+        return actual;
+    }
+
+    private static String implement(MetadataBackend backend, String outputDirectory, String directory,
+                                    String className) throws Exception {
+        try (SimpleImplementor implementor = new SimpleImplementor(outputDirectory)) {
+            implementor.setMetadataBackend(backend);
+            return directory == null ?
+                    implementor.implementFromStandardLibrary(className) :
+                    implementor.implementFromDirectory(directory, className);
+        }
+    }
+
+    private static String read(String outputDirectory, String implClassName) throws Exception {
+        Path file = Paths.get(outputDirectory, (implClassName.replace('.', File.separatorChar) + ".java"));
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
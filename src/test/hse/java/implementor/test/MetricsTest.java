@@ -0,0 +1,145 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.hse.java.implementor.ImplementMetrics;
+import ru.hse.java.implementor.ImplementorResult;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Every implement call is reported to the MetricsListener and to JDK Flight Recorder, including failed ones.
+ * Writer threads are tested as well: then the write finishes after the call has been traced up to rendering.
+ */
+public class MetricsTest {
+    private static final Path WORK_DIRECTORY = Paths.get("./tmp/metrics");
+
+    @AfterAll
+    static void cleanUp() {
+        AbstractImplementorTest.deleteFolderContent(WORK_DIRECTORY.toFile(), false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    public void listenerReceivesWrittenBytes(int writerThreads) throws Exception {
+        Path output = WORK_DIRECTORY.resolve("written-" + writerThreads);
+        List<ImplementMetrics> metrics = Collections.synchronizedList(new ArrayList<>());
+        try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+            implementor.setWriterThreads(writerThreads).setMetricsListener(metrics::add);
+            implementor.implementFromStandardLibrary("java.lang.Comparable");
+            assertThat(metrics).hasSize(1);
+        }
+
+        ImplementMetrics m = metrics.get(0);
+        assertThat(m.getClassName()).isEqualTo("java.lang.Comparable");
+        assertThat(m.getImplClassName()).isEqualTo("ComparableImpl");
+        assertThat(m.getError()).isNull();
+        assertThat(m.getMethodCount()).isEqualTo(1);
+        assertThat(m.getBytesWritten()).isEqualTo(Files.size(output.resolve("ComparableImpl.java")));
+        assertThat(m.getNanos(ImplementMetrics.Phase.LOAD)).isGreaterThan(0L);
+        assertThat(m.getNanos(ImplementMetrics.Phase.WRITE)).isGreaterThan(0L);
+        assertThat(m.getTotalNanos()).isGreaterThan(0L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    public void listenerReceivesWriteFailure(int writerThreads) throws Exception {
+        // A directory in place of the output file makes the write fail.
+        Path output = WORK_DIRECTORY.resolve("failed-" + writerThreads);
+        Files.createDirectories(output.resolve("ComparableImpl.java"));
+        List<ImplementMetrics> metrics = Collections.synchronizedList(new ArrayList<>());
+        try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+            implementor.setWriterThreads(writerThreads).setMetricsListener(metrics::add);
+            List<ImplementorResult> results =
+                    implementor.implementAllFromStandardLibrary(List.of("java.lang.Comparable"));
+            assertThat(results.get(0).isSuccess()).isFalse();
+            assertThat(metrics).hasSize(1);
+        }
+
+        ImplementMetrics m = metrics.get(0);
+        assertThat(m.getError()).isNotNull();
+        assertThat(m.getBytesWritten()).isEqualTo(0L);
+    }
+
+    @Test
+    public void listenerReceivesLoadFailures() throws Exception {
+        // A class file that cannot be defined fails with an Error rather than an ImplementorException.
+        Path input = WORK_DIRECTORY.resolve("broken");
+        Files.createDirectories(input.resolve("broken"));
+        Files.write(input.resolve("broken").resolve("Bad.class"), new byte[]{(byte) 0xCA, (byte) 0xFE, 0, 1});
+
+        List<ImplementMetrics> metrics = Collections.synchronizedList(new ArrayList<>());
+        try (SimpleImplementor implementor = new SimpleImplementor(WORK_DIRECTORY.resolve("out").toString())) {
+            implementor.setMetricsListener(metrics::add);
+            List<ImplementorResult> results = implementor.implementAllFromDirectory(input.toString(),
+                    List.of("broken.Bad", "broken.Missing"));
+            assertThat(results.get(0).isSuccess()).isFalse();
+            assertThat(results.get(1).isSuccess()).isFalse();
+        }
+
+        assertThat(metrics).hasSize(2);
+        for (ImplementMetrics m : metrics) {
+            assertThat(m.getError()).as(m.toString()).isNotNull();
+            assertThat(m.getImplClassName()).isNull();
+        }
+    }
+
+    @Test
+    public void flightRecorderEvents() throws Exception {
+        Path output = WORK_DIRECTORY.resolve("jfr");
+        Path recordingFile = WORK_DIRECTORY.resolve("implementor.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("ru.hse.java.implementor.Implement");
+            recording.enable("ru.hse.java.implementor.Phase");
+            recording.start();
+            try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+                implementor.setWriterThreads(2);
+                implementor.implementFromStandardLibrary("java.lang.Comparable");
+                implementor.implementAllFromStandardLibrary(List.of("java.lang.NoSuchType"));
+            }
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        RecordedEvent implemented = null;
+        RecordedEvent failed = null;
+        Set<String> phases = new HashSet<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            String name = event.getEventType().getName();
+            String className = event.getString("className");
+            if (name.equals("ru.hse.java.implementor.Implement")) {
+                if (className.equals("java.lang.Comparable")) {
+                    implemented = event;
+                } else if (className.equals("java.lang.NoSuchType")) {
+                    failed = event;
+                }
+            } else if (name.equals("ru.hse.java.implementor.Phase") && className.equals("java.lang.Comparable")) {
+                phases.add(event.getString("phase"));
+            }
+        }
+
+        assertThat(implemented).isNotNull();
+        assertThat(implemented.getString("implClassName")).isEqualTo("ComparableImpl");
+        assertThat(implemented.getString("error")).isNull();
+        assertThat(implemented.getLong("bytesWritten")).isEqualTo(Files.size(output.resolve("ComparableImpl.java")));
+        assertThat(phases).contains("LOAD", "RESOLVE", "RENDER", "WRITE");
+
+        assertThat(failed).isNotNull();
+        assertThat(failed.getString("implClassName")).isNull();
+        assertThat(failed.getString("error")).isNotNull();
+    }
+}
@@ -0,0 +1,142 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.hse.java.implementor.OutputFormat;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * A class file written directly must behave exactly like the compiled source: both are loaded through
+ * a URLClassLoader, so the bytecode verifier checks them, and every method must return the same default.
+ */
+public class OutputFormatTest extends AbstractImplementorTest {
+    private static final String FORMATS_DIRECTORY = "./tmp/formats";
+
+    public OutputFormatTest() throws Exception {
+        super();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        deleteFolderContent(new File(FORMATS_DIRECTORY), false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "java.lang.Comparable",
+            "java.lang.Iterable",
+            "java.util.AbstractSet",
+            "java.util.AbstractQueue"
+    })
+    public void standardLibrary(String className) throws Exception {
+        checkSameBehaviour(null, className);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "study.MyInterface",
+            "study.SomeInterface",
+            "NoPackageInterface",
+            "ru.hse.java.implementor.Implementor",
+            "study.inherit.ClassB",
+            "study.MyClass",
+            "study.AbstractClass",
+            "study.backend.Container",
+            "study.backend.Outer$Inner",
+            "study.backend.VisibleChild",
+            "study.backend.Resource"
+    })
+    public void folder(String className) throws Exception {
+        checkSameBehaviour(TESTS_DIRECTORY, className);
+    }
+
+    /**
+     * @param directory directory to load the class from, {@code null} for the standard library
+     */
+    private static void checkSameBehaviour(String directory, String className) throws Exception {
+        Map<String, Object> compiled = invokeAll(implement(OutputFormat.SOURCE, directory, className));
+        Map<String, Object> written = invokeAll(implement(OutputFormat.CLASS, directory, className));
+        assertThat(written).as(className).isEqualTo(compiled);
+    }
+
+    private static Class<?> implement(OutputFormat format, String directory, String className) throws Exception {
+        File output = new File(FORMATS_DIRECTORY, format.name());
+        String implClassName;
+        try (SimpleImplementor implementor = new SimpleImplementor(output.getPath())) {
+            implementor.setOutputFormat(format);
+            implClassName = directory == null ?
+                    implementor.implementFromStandardLibrary(className) :
+                    implementor.implementFromDirectory(directory, className);
+        }
+        if (format == OutputFormat.SOURCE) {
+            compile(output, implClassName);
+        }
+        URLClassLoader loader = new URLClassLoader(new URL[]{output.toURI().toURL()},
+                OutputFormatTest.class.getClassLoader());
+        Class<?> implClass = loader.loadClass(implClassName);
+        assertThat(implClass.getClassLoader()).isEqualTo(loader);
+        assertThat(Modifier.isAbstract(implClass.getModifiers())).isFalse();
+        return implClass;
+    }
+
+    private static void compile(File output, String implClassName) {
+        File source = new File(output, implClassName.replace('.', File.separatorChar) + ".java");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classPath = System.getProperty("java.class.path") + File.pathSeparator + TESTS_DIRECTORY;
+        int exitCode = compiler.run(null, null, null, "-nowarn", "-classpath", classPath,
+                "-d", output.getPath(), source.getPath());
+        assertThat(exitCode).as("Can't compile " + source).isEqualTo(0);
+    }
+
+    /**
+     * Instantiates the implementation and calls each of its methods with default arguments.
+     *
+     * @return result of each method by its signature
+     */
+    private static Map<String, Object> invokeAll(Class<?> implClass) throws Exception {
+        Object instance = implClass.getDeclaredConstructor().newInstance();
+        Map<String, Object> results = new TreeMap<>();
+        for (Method m : implClass.getDeclaredMethods()) {
+            if (m.isSynthetic()) {
+                continue;
+            }
+            Class<?>[] parameterTypes = m.getParameterTypes();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = defaultValue(parameterTypes[i]);
+            }
+            m.setAccessible(true);
+            Object result = m.invoke(instance, args);
+            assertThat(result).as(m.toString()).isEqualTo(defaultValue(m.getReturnType()));
+            results.put(m.getName() + Arrays.toString(parameterTypes), result);
+        }
+        return results;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        return Array.get(Array.newInstance(type, 1), 0);
+    }
+}
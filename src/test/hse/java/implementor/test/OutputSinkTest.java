@@ -0,0 +1,140 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.hse.java.implementor.OutputSink;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Every sink must receive exactly the bytes that implementFrom* writes to the *.java file.
+ */
+public class OutputSinkTest {
+    private static final Path SINKS_DIRECTORY = Paths.get("./tmp/sinks");
+
+    @AfterAll
+    static void cleanUp() {
+        AbstractImplementorTest.deleteFolderContent(SINKS_DIRECTORY.toFile(), false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "java.util.AbstractList",
+            "java.util.concurrent.BlockingDeque",
+            "study.AbstractClass",
+            "study.MyInterface"
+    })
+    public void sinksMatchWrittenFile(String className) throws Exception {
+        byte[] expected = writtenFile(className);
+        Class<?> type = Class.forName(className);
+
+        try (SimpleImplementor implementor = new SimpleImplementor(SINKS_DIRECTORY.resolve("unused").toString())) {
+            StringBuilder chars = new StringBuilder();
+            implementor.render(type, OutputSink.of(chars));
+            assertThat(chars.toString()).isEqualTo(new String(expected, Charset.defaultCharset()));
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            implementor.render(type, OutputSink.of(stream));
+            assertThat(Arrays.equals(stream.toByteArray(), expected)).as("OutputStream").isTrue();
+
+            Path file = SINKS_DIRECTORY.resolve(type.getSimpleName() + ".channel");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                implementor.render(type, OutputSink.of(channel));
+            }
+            assertThat(Arrays.equals(Files.readAllBytes(file), expected)).as("FileChannel").isTrue();
+
+            // A channel that accepts a few bytes per call checks that the sink writes until the end.
+            ByteArrayOutputStream partial = new ByteArrayOutputStream();
+            implementor.render(type, OutputSink.of(new TrickleChannel(partial)));
+            assertThat(Arrays.equals(partial.toByteArray(), expected)).as("partial writes").isTrue();
+
+            // Two renders into one buffer: the second must not overwrite the first.
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length * 2 + 16);
+            buffer.put((byte) '#');
+            implementor.render(type, OutputSink.of(buffer));
+            implementor.render(type, OutputSink.of(buffer));
+            buffer.flip();
+            assertThat(buffer.get()).isEqualTo((byte) '#');
+            for (int copy = 0; copy < 2; copy++) {
+                byte[] actual = new byte[expected.length];
+                buffer.get(actual);
+                assertThat(Arrays.equals(actual, expected)).as("ByteBuffer copy " + copy).isTrue();
+            }
+            assertThat(buffer.hasRemaining()).isFalse();
+
+            ByteArrayOutputStream utf16 = new ByteArrayOutputStream();
+            implementor.render(type, OutputSink.of(utf16, StandardCharsets.UTF_16BE));
+            assertThat(new String(utf16.toByteArray(), StandardCharsets.UTF_16BE)).
+                    isEqualTo(new String(expected, Charset.defaultCharset()));
+        }
+    }
+
+    @Test
+    public void undersizedBufferOverflows() throws Exception {
+        byte[] expected = writtenFile("java.util.AbstractList");
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length - 1);
+        try (SimpleImplementor implementor = new SimpleImplementor(SINKS_DIRECTORY.resolve("unused").toString())) {
+            Assertions.assertThrows(BufferOverflowException.class,
+                    () -> implementor.render(java.util.AbstractList.class, OutputSink.of(buffer)));
+        }
+        assertThat(buffer.position()).isEqualTo(0);
+    }
+
+    /**
+     * @return content of the file written by implementFromStandardLibrary or implementFromDirectory
+     */
+    private static byte[] writtenFile(String className) throws Exception {
+        Path output = SINKS_DIRECTORY.resolve("files");
+        String implClassName;
+        try (SimpleImplementor implementor = new SimpleImplementor(output.toString())) {
+            implClassName = className.startsWith("java.") ?
+                    implementor.implementFromStandardLibrary(className) :
+                    implementor.implementFromDirectory(AbstractImplementorTest.TESTS_DIRECTORY, className);
+        }
+        return Files.readAllBytes(output.resolve(implClassName.replace('.', File.separatorChar) + ".java"));
+    }
+
+    private static final class TrickleChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream out;
+
+        TrickleChannel(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = Math.min(7, src.remaining());
+            for (int i = 0; i < length; i++) {
+                out.write(src.get());
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.hse.java.implementor.MetadataBackend;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Pins which declaration is implemented when several supertypes declare the same erased signature.
+ */
+public class ResolutionTest extends AbstractImplementorTest {
+
+    public ResolutionTest() throws Exception {
+        super();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        deleteFolderContent(new File(OUTPUT_DIRECTORY), false);
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void subinterfaceWinsRegardlessOfDeclarationOrder(MetadataBackend backend) throws Exception {
+        checkNarrowedValue(implement(backend, "study.resolution.NarrowedFirst"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void subinterfaceWinsOverInterfaceOfSuperclass(MetadataBackend backend) throws Exception {
+        checkNarrowedValue(implement(backend, "study.resolution.NarrowedSubclass"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void abstractClassMethodWinsOverDefault(MetadataBackend backend) throws Exception {
+        Class<?> implClass = implement(backend, "study.resolution.Reabstracted");
+        Method greet = implClass.getDeclaredMethod("greet");
+        assertThat(greet.getReturnType().getName()).isEqualTo(String.class.getName());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void concreteClassMethodSatisfiesInterface(MetadataBackend backend) throws Exception {
+        Class<?> implClass = implement(backend, "study.resolution.InheritedImplementation");
+        assertThat(declares(implClass, "size")).isTrue();
+        assertThat(declares(implClass, "value")).isFalse();
+    }
+
+    private Class<?> implement(MetadataBackend backend, String className) throws Exception {
+        try (SimpleImplementor implementor = new SimpleImplementor(OUTPUT_DIRECTORY)) {
+            implementor.setMetadataBackend(backend);
+            String implClassName = implementor.implementFromDirectory(TESTS_DIRECTORY, className);
+            Class<?> implClass = compileAndLoadClass(implClassName);
+            checkExtendsAbstractClass(className, implClass);
+            return implClass;
+        }
+    }
+
+    private static void checkNarrowedValue(Class<?> implClass) throws Exception {
+        Method value = implClass.getDeclaredMethod("value");
+        assertThat(value.getReturnType().getName()).isEqualTo(String.class.getName());
+        assertThat(value.getExceptionTypes()).isEmpty();
+    }
+
+    private static boolean declares(Class<?> implClass, String name) {
+        for (Method m : implClass.getDeclaredMethods()) {
+            if (m.getName().equals(name) && !m.isBridge()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
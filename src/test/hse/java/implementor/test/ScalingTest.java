@@ -0,0 +1,210 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.IntFunction;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.hse.java.implementor.Implementor;
+
+/**
+ * Implements synthetic hierarchies of growing size, checks the generated code and records how time and
+ * allocation grow. Curves are written to build/scaling/*.csv.
+ *
+ * A sweep fails when the cost grows much faster than expected for the size of the input: by more than
+ * {@link #MAX_ALLOCATION_GROWTH} times the expected growth for allocation and {@link #MAX_TIME_GROWTH}
+ * times for time, which is noisier. Cost is expected to grow linearly with the number of declared methods,
+ * except for depth: every level copies the member table of the previous one, so it grows quadratically.
+ * Diamonds keep the number of declared methods nearly constant, so their cost must stay nearly constant too.
+ */
+public class ScalingTest {
+    private static final Path WORK_DIRECTORY = Paths.get("./tmp/scaling");
+    private static final Path CURVES_DIRECTORY = Paths.get("./build/scaling");
+    private static final int REPEATS = 3;
+    private static final double MAX_ALLOCATION_GROWTH = 2;
+    private static final double MAX_TIME_GROWTH = 4;
+
+    private final Class<?> implementorClass;
+
+    public ScalingTest() throws Exception {
+        Properties prop = new Properties();
+        prop.load(ScalingTest.class.getClassLoader().getResourceAsStream("build.properties"));
+        implementorClass = Class.forName(prop.getProperty("IMPLEMENTATION_CLASS"));
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        AbstractImplementorTest.deleteFolderContent(WORK_DIRECTORY.toFile(), false);
+    }
+
+    @Test
+    public void methodCountScalesLinearly() {
+        Assertions.assertTimeout(Duration.ofSeconds(120), () -> checkSweep("methods",
+                new int[]{16, 32, 64, 128, 256},
+                n -> new SyntheticHierarchy(3, 3, 0.5, n), 1));
+    }
+
+    @Test
+    public void typeCountScalesLinearly() {
+        Assertions.assertTimeout(Duration.ofSeconds(120), () -> checkSweep("fan-out",
+                new int[]{2, 4, 8, 16, 32},
+                n -> new SyntheticHierarchy(3, n, 0.5, 16), 1));
+    }
+
+    @Test
+    public void diamondsDoNotIncreaseCost() {
+        Assertions.assertTimeout(Duration.ofSeconds(120), () -> checkSweep("diamonds",
+                new int[]{0, 25, 50, 75, 100},
+                n -> new SyntheticHierarchy(4, 4, n / 100.0, 16), 1));
+    }
+
+    @Test
+    public void depthScalesQuadratically() {
+        Assertions.assertTimeout(Duration.ofSeconds(120), () -> checkSweep("depth",
+                new int[]{2, 4, 8, 12, 16},
+                n -> new SyntheticHierarchy(n, 2, 0.5, 16), 2));
+    }
+
+    /**
+     * @param exponent expected cost is proportional to the number of declared methods to this power
+     */
+    private void checkSweep(String name, int[] parameters, IntFunction<SyntheticHierarchy> shapes,
+                            int exponent) throws Exception {
+        List<Sample> samples = new ArrayList<>();
+        for (int parameter : parameters) {
+            SyntheticHierarchy hierarchy = shapes.apply(parameter);
+            Path input = WORK_DIRECTORY.resolve(name + "-" + parameter);
+            String className = hierarchy.generate(input);
+
+            // The first run warms up the JIT and checks the result; only the following runs are measured.
+            String implClassName = implement(input, className, null);
+            checkImplementation(input, className, implClassName, hierarchy.expectedMethodCount());
+
+            Sample sample = new Sample(parameter, hierarchy.declaredMethodCount());
+            for (int i = 0; i < REPEATS; i++) {
+                implement(input, className, sample);
+            }
+            samples.add(sample);
+        }
+
+        writeCurve(name, samples);
+
+        Sample first = samples.get(0);
+        Sample last = samples.get(samples.size() - 1);
+        double sizeGrowth = (double) last.size / first.size;
+        double expectedGrowth = Math.pow(sizeGrowth, exponent);
+        double timeGrowth = (double) last.nanos / first.nanos;
+        assertThat(timeGrowth)
+                .as(name + ": time grew " + timeGrowth + "x for " + sizeGrowth + "x input")
+                .isLessThanOrEqualTo(MAX_TIME_GROWTH * expectedGrowth);
+        if (first.allocatedBytes > 0) {
+            double allocationGrowth = (double) last.allocatedBytes / first.allocatedBytes;
+            assertThat(allocationGrowth)
+                    .as(name + ": allocation grew " + allocationGrowth + "x for " + sizeGrowth + "x input")
+                    .isLessThanOrEqualTo(MAX_ALLOCATION_GROWTH * expectedGrowth);
+        }
+    }
+
+    /**
+     * Runs a fresh implementor, so class loaders and caches are cold, and records the best time and allocation.
+     */
+    private String implement(Path input, String className, Sample sample) throws Exception {
+        Path output = input.resolve("out");
+        Implementor implementor = (Implementor) implementorClass.getDeclaredConstructor(String.class)
+                .newInstance(output.toString());
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        String implClassName = implementor.implementFromDirectory(input.toString(), className);
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        if (implementor instanceof AutoCloseable) {
+            ((AutoCloseable) implementor).close();
+        }
+        if (sample != null) {
+            sample.record(nanos, allocated);
+        }
+        return implClassName;
+    }
+
+    private static void checkImplementation(Path input, String className, String implClassName,
+                                            int expectedMethodCount) throws IOException, ReflectiveOperationException {
+        Path output = input.resolve("out");
+        String[] split = implClassName.split("\\.");
+        split[split.length - 1] += ".java";
+        Path source = Paths.get(output.toString(), split);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int exitCode = compiler.run(null, null, null, "-nowarn", "-classpath", input.toString(),
+                "-d", output.toString(), source.toString());
+        assertThat(exitCode).as("Can't compile " + source).isEqualTo(0);
+
+        URL[] urls = {output.toUri().toURL(), input.toUri().toURL()};
+        try (URLClassLoader loader = new URLClassLoader(urls)) {
+            Class<?> implClass = loader.loadClass(implClassName);
+            assertThat(Modifier.isAbstract(implClass.getModifiers())).isFalse();
+            assertThat(implClass.getSuperclass().getName()).isEqualTo(className);
+            int methods = 0;
+            for (Method m : implClass.getDeclaredMethods()) {
+                if (!m.isSynthetic()) {
+                    methods++;
+                }
+            }
+            assertThat(methods).isEqualTo(expectedMethodCount);
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+            if (allocation.isThreadAllocatedMemoryEnabled()) {
+                return allocation.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    private static void writeCurve(String name, List<Sample> samples) throws IOException {
+        List<String> lines = new ArrayList<>(Arrays.asList("parameter,declared_methods,nanos,allocated_bytes"));
+        for (Sample sample : samples) {
+            lines.add(sample.parameter + "," + sample.size + "," + sample.nanos + "," + sample.allocatedBytes);
+        }
+        Files.createDirectories(CURVES_DIRECTORY);
+        Files.write(CURVES_DIRECTORY.resolve(name + ".csv"), lines, StandardCharsets.UTF_8);
+    }
+
+    private static final class Sample {
+        final int parameter;
+        final int size;
+        long nanos = Long.MAX_VALUE;
+        long allocatedBytes = Long.MAX_VALUE;
+
+        Sample(int parameter, int size) {
+            this.parameter = parameter;
+            this.size = size;
+        }
+
+        void record(long nanos, long allocatedBytes) {
+            this.nanos = Math.min(this.nanos, nanos);
+            this.allocatedBytes = Math.min(this.allocatedBytes, allocatedBytes);
+        }
+    }
+}
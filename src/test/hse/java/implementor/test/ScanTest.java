@@ -0,0 +1,132 @@
+package hse.java.implementor.test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.hse.java.implementor.ImplementorResult;
+import ru.hse.java.implementor.MetadataBackend;
+import ru.hse.java.implementor.SimpleImplementor;
+
+/*
+ * Scans a class directory and a jar with the classes of study.scan, where First.Builder and Second.Builder
+ * both map to study.scan.BuilderImpl, and a JDK module.
+ */
+public class ScanTest extends AbstractImplementorTest {
+    private static final Path WORK_DIRECTORY = Paths.get("./tmp/scan");
+    private static final String PACKAGE = "study/scan";
+
+    public ScanTest() throws Exception {
+        super();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        deleteFolderContent(new File(OUTPUT_DIRECTORY), false);
+        deleteFolderContent(WORK_DIRECTORY.toFile(), false);
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void scanDirectory(MetadataBackend backend) throws Exception {
+        Path classes = WORK_DIRECTORY.resolve(backend.name()).resolve("classes");
+        for (Path file : fixtures()) {
+            Path target = classes.resolve(PACKAGE).resolve(file.getFileName().toString());
+            Files.createDirectories(target.getParent());
+            Files.copy(file, target);
+        }
+        checkScan(backend, classes);
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void scanJar(MetadataBackend backend) throws Exception {
+        Path jar = WORK_DIRECTORY.resolve(backend.name()).resolve("scan.jar");
+        Files.createDirectories(jar.getParent());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Path file : fixtures()) {
+                out.putNextEntry(new JarEntry(PACKAGE + "/" + file.getFileName()));
+                Files.copy(file, (OutputStream) out);
+                out.closeEntry();
+            }
+        }
+        checkScan(backend, jar);
+    }
+
+    @ParameterizedTest
+    @EnumSource(MetadataBackend.class)
+    public void scanModule(MetadataBackend backend) throws Exception {
+        // HttpClient.Builder, HttpRequest.Builder and WebSocket.Builder all map to BuilderImpl.
+        List<ImplementorResult> results = new CopyOnWriteArrayList<>();
+        try (SimpleImplementor implementor = new SimpleImplementor(OUTPUT_DIRECTORY)) {
+            implementor.setMetadataBackend(backend);
+            implementor.scanAndImplementModule("java.net.http", results::add);
+        }
+
+        Set<String> implClassNames = new HashSet<>();
+        int builders = 0;
+        for (ImplementorResult result : results) {
+            if (result.getClassName().endsWith("$Builder")) {
+                builders++;
+            }
+            if (result.isSuccess()) {
+                assertThat(implClassNames.add(result.getImplClassName())).as(result.toString()).isTrue();
+                compileAndLoadClass(result.getImplClassName());
+            } else {
+                assertThat(result.getError().getMessage()).as(result.toString()).contains("BuilderImpl");
+            }
+        }
+        assertThat(builders).isEqualTo(3);
+        assertThat(implClassNames).contains("BuilderImpl", "HttpClientImpl", "WebSocketImpl");
+        assertThat(results).hasSize(implClassNames.size() + 2);
+    }
+
+    private void checkScan(MetadataBackend backend, Path input) throws Exception {
+        Map<String, ImplementorResult> results = new ConcurrentHashMap<>();
+        try (SimpleImplementor implementor = new SimpleImplementor(OUTPUT_DIRECTORY)) {
+            implementor.setMetadataBackend(backend);
+            implementor.scanAndImplement(input.toString(), result -> results.put(result.getClassName(), result));
+        }
+
+        // First is not abstract and Hidden is not public, so neither is implemented.
+        assertThat(results.keySet()).containsOnly(
+                "study.scan.First$Builder", "study.scan.Second", "study.scan.Second$Builder");
+
+        ImplementorResult second = results.get("study.scan.Second");
+        assertThat(second.isSuccess()).as(second.toString()).isTrue();
+        compileAndCheckInterfaceImplementation("study.scan.Second", second.getImplClassName());
+
+        // Exactly one of the builders gets BuilderImpl, the other one is reported as a failure.
+        ImplementorResult first = results.get("study.scan.First$Builder");
+        ImplementorResult other = results.get("study.scan.Second$Builder");
+        assertThat(first.isSuccess()).as(first + ", " + other).isEqualTo(!other.isSuccess());
+        ImplementorResult failed = first.isSuccess() ? other : first;
+        assertThat(failed.getError().getMessage()).contains("study.scan.BuilderImpl");
+        ImplementorResult implemented = first.isSuccess() ? first : other;
+        assertThat(implemented.getImplClassName()).isEqualTo("study.scan.BuilderImpl");
+        compileAndLoadClass(implemented.getImplClassName());
+    }
+
+    private static List<Path> fixtures() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(TESTS_DIRECTORY, PACKAGE))) {
+            return files.collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package hse.java.implementor.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Generates a synthetic hierarchy of interfaces and abstract classes and compiles it to class files.
+ *
+ * Interfaces form `depth` levels of `fanOut` types. Each interface extends the interface with the same
+ * index on the previous level and, with probability `diamondDensity`, its neighbour as well, which creates
+ * diamonds. With the same probability an interface also redeclares shared methods that other branches
+ * declare too. Abstract classes form a chain of `depth` types: each declares `methodCount` abstract methods
+ * and implements one abstract method of its superclass. The last class in the chain implements every
+ * interface of the last level and is the type to implement.
+ */
+final class SyntheticHierarchy {
+    static final String PACKAGE = "synthetic";
+
+    private final int depth;
+    private final int fanOut;
+    private final double diamondDensity;
+    private final int methodCount;
+    private final Random random = new Random(42);
+    private final Set<String> sharedMethods = new TreeSet<>();
+
+    SyntheticHierarchy(int depth, int fanOut, double diamondDensity, int methodCount) {
+        this.depth = depth;
+        this.fanOut = fanOut;
+        this.diamondDensity = diamondDensity;
+        this.methodCount = methodCount;
+    }
+
+    /**
+     * Writes sources and compiles them into `root`.
+     *
+     * @return binary name of the abstract class to implement
+     */
+    String generate(Path root) throws IOException {
+        Path sources = root.resolve("src").resolve(PACKAGE);
+        Files.createDirectories(sources);
+        List<Path> files = new ArrayList<>();
+
+        for (int level = 0; level < depth; level++) {
+            for (int k = 0; k < fanOut; k++) {
+                files.add(write(sources, interfaceName(level, k), interfaceSource(level, k)));
+            }
+        }
+        for (int level = 0; level < depth; level++) {
+            files.add(write(sources, className(level), classSource(level)));
+        }
+
+        compile(root, files);
+        return PACKAGE + "." + className(depth - 1);
+    }
+
+    /**
+     * @return number of methods an implementation of the leaf class has to declare
+     */
+    int expectedMethodCount() {
+        return depth * fanOut * methodCount + sharedMethods.size() + depth * methodCount - (depth - 1);
+    }
+
+    /**
+     * @return number of methods declared across the whole hierarchy
+     */
+    int declaredMethodCount() {
+        return depth * (fanOut + 1) * methodCount;
+    }
+
+    private String interfaceSource(int level, int k) {
+        StringBuilder out = new StringBuilder("package " + PACKAGE + ";\n\n");
+        out.append("public interface ").append(interfaceName(level, k));
+        if (level > 0) {
+            out.append(" extends ").append(interfaceName(level - 1, k));
+            if (fanOut > 1 && random.nextDouble() < diamondDensity) {
+                out.append(", ").append(interfaceName(level - 1, (k + 1) % fanOut));
+            }
+        }
+        out.append(" {\n");
+        for (int j = 0; j < methodCount; j++) {
+            String name = "m_" + level + "_" + k + "_" + j;
+            switch (j % 3) {
+                case 0:
+                    out.append("    int ").append(name).append("(int a, java.lang.String[] b);\n");
+                    break;
+                case 1:
+                    out.append("    java.util.List<java.lang.String> ").append(name)
+                            .append("(long a) throws java.io.IOException;\n");
+                    break;
+                default:
+                    out.append("    void ").append(name).append("(java.util.Map<java.lang.String, int[]> a);\n");
+                    break;
+            }
+        }
+        int shared = Math.max(1, methodCount / 4);
+        for (int j = 0; j < shared; j++) {
+            if (random.nextDouble() < diamondDensity) {
+                String name = "shared_" + j;
+                sharedMethods.add(name);
+                out.append("    boolean ").append(name).append("(java.lang.Object a);\n");
+            }
+        }
+        return out.append("}\n").toString();
+    }
+
+    private String classSource(int level) {
+        StringBuilder out = new StringBuilder("package " + PACKAGE + ";\n\n");
+        out.append("public abstract class ").append(className(level));
+        if (level > 0) {
+            out.append(" extends ").append(className(level - 1));
+        }
+        if (level == depth - 1) {
+            String[] interfaces = new String[fanOut];
+            for (int k = 0; k < fanOut; k++) {
+                interfaces[k] = interfaceName(depth - 1, k);
+            }
+            out.append(" implements ").append(String.join(", ", Arrays.asList(interfaces)));
+        }
+        out.append(" {\n");
+        for (int j = 0; j < methodCount; j++) {
+            out.append("    protected abstract long c_").append(level).append("_").append(j)
+                    .append("(java.util.List<java.lang.String> a, char b);\n");
+        }
+        if (level > 0) {
+            out.append("    @Override\n    protected long c_").append(level - 1)
+                    .append("_0(java.util.List<java.lang.String> a, char b) {\n        return 0;\n    }\n");
+        }
+        return out.append("}\n").toString();
+    }
+
+    private String interfaceName(int level, int k) {
+        return "I_" + level + "_" + k;
+    }
+
+    private String className(int level) {
+        return level == depth - 1 ? "C_leaf" : "C_" + level;
+    }
+
+    private static Path write(Path directory, String name, String source) throws IOException {
+        Path file = directory.resolve(name + ".java");
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static void compile(Path root, List<Path> files) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromPaths(files);
+            List<String> options = Arrays.asList("-d", root.toString(), "-nowarn");
+            if (!compiler.getTask(null, fileManager, null, options, null, units).call()) {
+                throw new IllegalStateException("Synthetic hierarchy does not compile: " + root);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.hse.java.implementor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/*
+ * JdkIndex is package-private, so this test lives in the implementation package.
+ */
+public class JdkIndexTest {
+    private static final Path INDEX_DIRECTORY = Paths.get("./tmp/jdk-index");
+    private static final List<String> CLASSES = Arrays.asList(
+            "java.util.Comparator",
+            "java.util.AbstractList",
+            "java.util.Map$Entry",
+            "java.lang.Iterable",
+            "java.io.InputStream",
+            "java.util.concurrent.Callable",
+            "java.sql.Connection");
+
+    @AfterAll
+    static void cleanUp() {
+        File[] files = INDEX_DIRECTORY.toFile().listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+
+    @Test
+    public void reopenedIndexMatchesJrtImage() throws Exception {
+        Path file = JdkIndex.build(INDEX_DIRECTORY, CLASSES);
+        assertThat(file.getFileName().toString()).isEqualTo(JdkIndex.fileName());
+        JdkIndex index = JdkIndex.open(file);
+
+        for (String className : CLASSES) {
+            ClassMetadata indexed = index.find(className);
+            assertThat(indexed).as(className).isNotNull();
+            ClassMetadata jrt = ClassFileRepository.system().load(className);
+
+            assertThat(indexed.getImplClassName()).isEqualTo(jrt.getImplClassName());
+            assertThat(indexed.members().keySet()).as(className).isEqualTo(jrt.members().keySet());
+            String expected = SourceRenderer.render(jrt, ImplementationMode.STUB, false).toString();
+            assertThat(SourceRenderer.render(indexed, ImplementationMode.STUB, false).toString()).
+                    as(className).isEqualTo(expected);
+        }
+        assertThat(index.find("java.lang.String")).isNull();
+        assertThat(index.find("java.util.Missing")).isNull();
+    }
+
+    @Test
+    public void corruptedBodyIsRejected() throws Exception {
+        byte[] bytes = Files.readAllBytes(JdkIndex.build(INDEX_DIRECTORY, CLASSES));
+        bytes[bytes.length - 5] ^= 1;
+        checkRejected(bytes, "corrupted.bin");
+    }
+
+    @Test
+    public void truncatedIndexIsRejected() throws Exception {
+        byte[] bytes = Files.readAllBytes(JdkIndex.build(INDEX_DIRECTORY, CLASSES));
+        checkRejected(Arrays.copyOf(bytes, bytes.length / 2), "truncated.bin");
+        checkRejected(Arrays.copyOf(bytes, 20), "header.bin");
+    }
+
+    @Test
+    public void sectionOutOfBoundsIsRejected() throws Exception {
+        byte[] bytes = Files.readAllBytes(JdkIndex.build(INDEX_DIRECTORY, CLASSES));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        // The last header field before the checksum is the position of the class section.
+        int classesField = 8 + 4 + buffer.getInt(8) + 12;
+        buffer.putInt(classesField, bytes.length - 2);
+        checkRejected(bytes, "bounds.bin");
+        buffer.putInt(classesField, -1);
+        checkRejected(bytes, "negative.bin");
+    }
+
+    @Test
+    public void implementorRejectsCorruptedIndex() throws Exception {
+        byte[] bytes = Files.readAllBytes(JdkIndex.build(INDEX_DIRECTORY, CLASSES));
+        bytes[bytes.length / 2] ^= 1;
+        Path file = Files.write(INDEX_DIRECTORY.resolve("rejected.bin"), bytes);
+        try (SimpleImplementor implementor = new SimpleImplementor(INDEX_DIRECTORY.toString())) {
+            Assertions.assertThrows(ImplementorException.class, () -> implementor.setJdkIndex(file.toString()));
+        }
+    }
+
+    private static void checkRejected(byte[] bytes, String fileName) throws IOException {
+        Path file = Files.write(INDEX_DIRECTORY.resolve(fileName), bytes);
+        Assertions.assertThrows(IOException.class, () -> JdkIndex.open(file));
+    }
+}
@@ -0,0 +1,89 @@
+package ru.hse.java.implementor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Rendered method fragments are cached in MethodMetadata, which every subtype shares, so a wrong fragment
+ * would reach every later implementation. SourceRenderer is package-private, so this test lives
+ * in the implementation package.
+ */
+public class RenderCacheTest {
+    // None of them redeclares size(), so all three inherit the same Collection method.
+    private static final List<Class<?>> COLLECTIONS = Arrays.asList(java.util.Queue.class,
+            java.util.concurrent.BlockingQueue.class, java.util.concurrent.TransferQueue.class);
+
+    @Test
+    public void cachedFragmentsMatchFreshRender() {
+        List<ClassMetadata> types = metadata();
+        Map<ClassMetadata, String> cached = new HashMap<>();
+        for (ClassMetadata type : types) {
+            render(type, ImplementationMode.STUB);
+            cached.put(type, render(type, ImplementationMode.STUB));
+        }
+
+        // Collection methods come to every subinterface as the same instance with the same fragment.
+        MethodMetadata size = types.get(0).members().get("size()");
+        assertThat(size.getRenderedSource()).isNotNull();
+        for (ClassMetadata type : types) {
+            assertThat(type.members().get("size()") == size).as(type.getName()).isTrue();
+        }
+
+        clearFragments(types);
+        for (ClassMetadata type : types) {
+            assertThat(cached.get(type)).as(type.getName()).isEqualTo(render(type, ImplementationMode.STUB));
+        }
+    }
+
+    @Test
+    public void stubFragmentsDoNotLeakIntoOtherModes() {
+        List<ClassMetadata> types = metadata();
+        clearFragments(types);
+        Map<ClassMetadata, String> forwarding = new HashMap<>();
+        Map<ClassMetadata, String> counting = new HashMap<>();
+        for (ClassMetadata type : types) {
+            forwarding.put(type, render(type, ImplementationMode.FORWARDING));
+            counting.put(type, render(type, ImplementationMode.COUNTING));
+        }
+        for (ClassMetadata type : types) {
+            for (MethodMetadata m : type.methodsToGen()) {
+                assertThat(m.getRenderedSource()).as(m.toString()).isNull();
+            }
+        }
+
+        for (ClassMetadata type : types) {
+            String stub = render(type, ImplementationMode.STUB);
+            assertThat(render(type, ImplementationMode.FORWARDING)).as(type.getName()).
+                    isEqualTo(forwarding.get(type));
+            assertThat(render(type, ImplementationMode.COUNTING)).as(type.getName()).isEqualTo(counting.get(type));
+            assertThat(render(type, ImplementationMode.STUB)).as(type.getName()).isEqualTo(stub);
+        }
+        assertThat(forwarding.get(types.get(0))).contains("return " + SourceRenderer.DELEGATE_FIELD + ".size();");
+    }
+
+    private static List<ClassMetadata> metadata() {
+        List<ClassMetadata> result = new ArrayList<>();
+        for (Class<?> type : COLLECTIONS) {
+            result.add(ReflectionClassMetadata.of(type));
+        }
+        return result;
+    }
+
+    private static void clearFragments(List<ClassMetadata> types) {
+        for (ClassMetadata type : types) {
+            for (MethodMetadata m : type.members().values()) {
+                m.setRenderedSource(null);
+            }
+        }
+    }
+
+    private static String render(ClassMetadata type, ImplementationMode mode) {
+        return SourceRenderer.render(type, mode, false).toString();
+    }
+}
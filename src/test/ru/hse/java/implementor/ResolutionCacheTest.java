@@ -0,0 +1,104 @@
+package ru.hse.java.implementor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/*
+ * ClassMetadata is package-private, so this test lives in the implementation package. Each test uses its own
+ * fixture types: resolved tables are cached for the whole process.
+ */
+public class ResolutionCacheTest {
+
+    public interface Base {
+        void base() throws IOException;
+    }
+
+    public interface Middle extends Base {
+        int middle(String s);
+    }
+
+    public interface Sibling extends Base {
+        void sibling();
+    }
+
+    public interface ChainBase {
+        void base();
+    }
+
+    public interface ChainMiddle extends ChainBase {
+        int middle(String s);
+    }
+
+    public interface ChainLeaf extends ChainMiddle {
+        void leaf();
+    }
+
+    public interface DiamondBase {
+        void base();
+    }
+
+    public interface DiamondLeft extends DiamondBase {
+        void left();
+    }
+
+    public interface DiamondRight extends DiamondBase {
+        void right();
+    }
+
+    public interface DiamondLeaf extends DiamondLeft, DiamondRight {
+    }
+
+    @Test
+    public void supertypeTableIsReusedBySubtypes() {
+        ClassMetadata base = ReflectionClassMetadata.of(Base.class);
+        assertThat(base.isResolved()).isFalse();
+        Map<String, MethodMetadata> baseMembers = base.members();
+        assertThat(base.isResolved()).isTrue();
+
+        ClassMetadata middle = ReflectionClassMetadata.of(Middle.class);
+        assertThat(middle.isResolved()).isFalse();
+        Map<String, MethodMetadata> middleMembers = middle.members();
+        assertThat(middleMembers.keySet()).containsOnly("base()", "middle(Ljava/lang/String;)");
+        assertThat(middleMembers.get("base()") == baseMembers.get("base()")).as("inherited method").isTrue();
+
+        ClassMetadata sibling = ReflectionClassMetadata.of(Sibling.class);
+        assertThat(sibling.members().get("base()") == baseMembers.get("base()")).as("inherited method").isTrue();
+
+        // Later lookups of the same types return the cached metadata and tables.
+        assertThat(ReflectionClassMetadata.of(Base.class) == base).isTrue();
+        assertThat(ReflectionClassMetadata.of(Base.class).members() == baseMembers).isTrue();
+        assertThat(ReflectionClassMetadata.of(Middle.class).members() == middleMembers).isTrue();
+    }
+
+    @Test
+    public void resolvingSubtypeResolvesEachSupertypeOnce() {
+        ClassMetadata leaf = ReflectionClassMetadata.of(ChainLeaf.class);
+        ClassMetadata middle = ReflectionClassMetadata.of(ChainMiddle.class);
+        assertThat(leaf.isResolved()).isFalse();
+        assertThat(middle.isResolved()).isFalse();
+
+        leaf.members();
+        assertThat(ReflectionClassMetadata.of(ChainBase.class).isResolved()).isTrue();
+        assertThat(middle.isResolved()).isTrue();
+        Map<String, MethodMetadata> middleMembers = middle.members();
+        assertThat(leaf.members().get("middle(Ljava/lang/String;)") ==
+                middleMembers.get("middle(Ljava/lang/String;)")).isTrue();
+    }
+
+    @Test
+    public void diamondSharesTopTable() {
+        ClassMetadata leaf = ReflectionClassMetadata.of(DiamondLeaf.class);
+        Map<String, MethodMetadata> members = leaf.members();
+        assertThat(members.keySet()).containsOnly("base()", "left()", "right()");
+
+        ClassMetadata top = ReflectionClassMetadata.of(DiamondBase.class);
+        assertThat(top.isResolved()).isTrue();
+        MethodMetadata base = top.members().get("base()");
+        assertThat(ReflectionClassMetadata.of(DiamondLeft.class).members().get("base()") == base).isTrue();
+        assertThat(ReflectionClassMetadata.of(DiamondRight.class).members().get("base()") == base).isTrue();
+        assertThat(members.get("base()") == base).isTrue();
+    }
+}
@@ -0,0 +1,146 @@
+package ru.hse.java.implementor;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/*
+ * WritePipeline is package-private, so this test lives in the implementation package.
+ */
+public class WritePipelineTest {
+    private static final ByteBuffer CONTENT = ByteBuffer.wrap(new byte[]{1, 2, 3});
+
+    @Test
+    public void singleWriterKeepsSubmissionOrder() throws Exception {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> expected = new ArrayList<>();
+        WritePipeline pipeline = new WritePipeline(1, 4);
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            expected.add(index);
+            pipeline.submit(CONTENT.duplicate(), content -> written.add(index));
+        }
+        assertThat(pipeline.await()).isNull();
+        assertThat(written).isEqualTo(expected);
+        pipeline.close();
+    }
+
+    @Test
+    public void awaitReturnsAfterDependentActions() throws Exception {
+        // SimpleImplementor finishes its metrics in actions that depend on the write; flush must wait for them.
+        AtomicInteger completed = new AtomicInteger();
+        WritePipeline pipeline = new WritePipeline(4, 8);
+        for (int i = 0; i < 200; i++) {
+            pipeline.submit(CONTENT.duplicate(), content -> {
+                await(new CountDownLatch(1), 1);
+                return true;
+            }).thenRun(completed::incrementAndGet);
+        }
+        assertThat(pipeline.await()).isNull();
+        assertThat(completed.get()).isEqualTo(200);
+        pipeline.close();
+    }
+
+    @Test
+    public void awaitReturnsFirstErrorOnce() throws Exception {
+        WritePipeline pipeline = new WritePipeline(1, 4);
+        CompletableFuture<Boolean> failed = pipeline.submit(CONTENT.duplicate(), content -> {
+            throw new IOException("first");
+        });
+        CompletableFuture<Boolean> skipped = pipeline.submit(CONTENT.duplicate(), content -> false);
+        IOException error = pipeline.await();
+        assertThat(error).isNotNull();
+        assertThat(error.getMessage()).isEqualTo("first");
+        assertThat(failed.isCompletedExceptionally()).isTrue();
+        assertThat(skipped.get()).isFalse();
+        assertThat(pipeline.await()).isNull();
+        pipeline.close();
+    }
+
+    @Test
+    public void submitBlocksWhenQueueIsFull() throws Exception {
+        int capacity = 2;
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        WritePipeline pipeline = new WritePipeline(1, capacity);
+        AtomicInteger submitted = new AtomicInteger();
+
+        Thread submitter = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                pipeline.submit(CONTENT.duplicate(), content -> {
+                    writing.countDown();
+                    await(release, 10_000);
+                    return true;
+                });
+                submitted.incrementAndGet();
+            }
+        });
+        submitter.start();
+
+        // One write is running and `capacity` are queued; the next submit has to wait.
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (submitter.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertThat(submitter.getState()).isEqualTo(Thread.State.WAITING);
+        assertThat(submitted.get()).isEqualTo(1 + capacity);
+
+        release.countDown();
+        submitter.join(TimeUnit.SECONDS.toMillis(10));
+        assertThat(submitted.get()).isEqualTo(10);
+        assertThat(pipeline.await()).isNull();
+        pipeline.close();
+    }
+
+    @Test
+    public void closeWaitsForWritesAndKeepsInterrupt() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger written = new AtomicInteger();
+        WritePipeline pipeline = new WritePipeline(1, 4);
+        for (int i = 0; i < 3; i++) {
+            pipeline.submit(CONTENT.duplicate(), content -> {
+                await(release, 10_000);
+                written.incrementAndGet();
+                return true;
+            });
+        }
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            release.countDown();
+        });
+        releaser.start();
+        Thread.currentThread().interrupt();
+        try {
+            pipeline.close();
+            assertThat(written.get()).isEqualTo(3);
+        } finally {
+            assertThat(Thread.interrupted()).isTrue();
+            releaser.join();
+        }
+    }
+
+    private static void await(CountDownLatch latch, long millis) throws IOException {
+        try {
+            latch.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}